@@ -18,36 +18,115 @@
 package de.fau.cs.osr.utils;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
+/**
+ * A stack backed by an array.
+ * 
+ * When the array is full it grows by the configured growth factor (but at
+ * least by the configured minimum increase), which makes push() amortized
+ * O(1). Popped slots are cleared so that popped elements can be garbage
+ * collected. Optionally the array shrinks when the stack becomes sparse.
+ * 
+ * Elements are indexed from the bottom (index 0) to the top of the stack.
+ * Iterators traverse the stack in this order and are fail-fast. This class is
+ * not thread-safe.
+ */
 public class ArrayStack<T>
+        implements
+            Iterable<T>
 {
+	public static final double DEFAULT_GROWTH_FACTOR = 1.5;
+	
 	private Object[] stack;
 	
+	private final int initialCapacity;
+	
 	private final int capacityIncrease;
 	
+	private final double growthFactor;
+	
+	private final double shrinkThreshold;
+	
 	private int size = 0;
 	
+	private int modCount = 0;
+	
+	// =========================================================================
+	
 	public ArrayStack()
 	{
-		this.stack = new Object[10];
-		this.capacityIncrease = 10;
+		this(10, 1, DEFAULT_GROWTH_FACTOR, 0);
 	}
 	
+	/**
+	 * @param capacityIncrease
+	 *            The minimum number of slots added when the stack grows. The
+	 *            stack grows at least by the default growth factor.
+	 */
 	public ArrayStack(int initialCapacity, int capacityIncrease)
+	{
+		this(initialCapacity, capacityIncrease, DEFAULT_GROWTH_FACTOR, 0);
+	}
+	
+	/**
+	 * @param initialCapacity
+	 *            The initial size of the array. The array never shrinks below
+	 *            this size.
+	 * @param capacityIncrease
+	 *            The minimum number of slots added when the stack grows.
+	 * @param growthFactor
+	 *            The factor by which the array grows, must be greater than 1.
+	 * @param shrinkThreshold
+	 *            If, after popping, the stack occupies this fraction of the
+	 *            array or less, the array is halved. Must be less than 0.5. A
+	 *            value of 0 disables shrinking.
+	 */
+	public ArrayStack(
+	        int initialCapacity,
+	        int capacityIncrease,
+	        double growthFactor,
+	        double shrinkThreshold)
 	{
 		if (initialCapacity < 0 || capacityIncrease < 1)
 			throw new IllegalArgumentException();
 		
+		if (!(growthFactor > 1.))
+			throw new FmtIllegalArgumentException(
+			        "Growth factor must be greater than 1: %f", growthFactor);
+		
+		if (!(shrinkThreshold >= 0. && shrinkThreshold < .5))
+			throw new FmtIllegalArgumentException(
+			        "Shrink threshold must be in [0, 0.5): %f", shrinkThreshold);
+		
 		this.stack = new Object[initialCapacity];
+		this.initialCapacity = initialCapacity;
 		this.capacityIncrease = capacityIncrease;
+		this.growthFactor = growthFactor;
+		this.shrinkThreshold = shrinkThreshold;
 	}
 	
+	// =========================================================================
+	
 	public boolean isEmpty()
 	{
 		return size == 0;
 	}
 	
+	public int size()
+	{
+		return size;
+	}
+	
+	public int getCapacity()
+	{
+		return stack.length;
+	}
+	
 	@SuppressWarnings("unchecked")
 	public T peek()
 	{
@@ -56,25 +135,199 @@ public class ArrayStack<T>
 		return (T) stack[size - 1];
 	}
 	
+	/**
+	 * Returns the element the given number of positions below the top of the
+	 * stack. peek(0) is equivalent to peek().
+	 */
+	@SuppressWarnings("unchecked")
+	public T peek(int depth)
+	{
+		if (depth < 0 || depth >= size)
+			throw new EmptyStackException();
+		return (T) stack[size - 1 - depth];
+	}
+	
+	/**
+	 * Returns the element at the given index. Index 0 denotes the bottom of
+	 * the stack.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException(
+			        "Index: " + index + ", Size: " + size);
+		return (T) stack[index];
+	}
+	
+	// =========================================================================
+	
 	public T pop()
 	{
 		T top = peek();
-		--size;
+		stack[--size] = null;
+		++modCount;
+		shrinkIfSparse();
 		return top;
 	}
 	
+	/**
+	 * Removes the top n elements.
+	 */
+	public void popN(int n)
+	{
+		if (n < 0)
+			throw new IllegalArgumentException();
+		if (n > size)
+			throw new EmptyStackException();
+		
+		Arrays.fill(stack, size - n, size, null);
+		size -= n;
+		++modCount;
+		shrinkIfSparse();
+	}
+	
+	/**
+	 * Returns a checkpoint that rewind() can return to. The checkpoint is the
+	 * current size of the stack.
+	 */
+	public int mark()
+	{
+		return size;
+	}
+	
+	/**
+	 * Pops all elements pushed since the given checkpoint was taken. This
+	 * takes time proportional to the number of popped elements.
+	 * 
+	 * The stack is only restored to its state at the time of the checkpoint
+	 * if no element below the checkpoint was popped in the meantime.
+	 * 
+	 * @param mark
+	 *            A checkpoint previously returned by mark().
+	 */
+	public void rewind(int mark)
+	{
+		if (mark < 0 || mark > size)
+			throw new FmtIllegalArgumentException(
+			        "Invalid mark %d for stack of size %d", mark, size);
+		popN(size - mark);
+	}
+	
 	public T push(T item)
 	{
 		if (size == stack.length)
-			stack = Arrays.copyOf(stack, stack.length + capacityIncrease);
+			grow(size + 1);
 		
 		stack[size++] = item;
+		++modCount;
 		
 		return item;
 	}
 	
+	/**
+	 * Pushes the elements of the given collection in iteration order. The last
+	 * element ends up on top of the stack.
+	 */
+	public void pushAll(Collection<? extends T> items)
+	{
+		Object[] a = items.toArray();
+		ensureCapacity(size + a.length);
+		System.arraycopy(a, 0, stack, size, a.length);
+		size += a.length;
+		++modCount;
+	}
+	
 	public void clear()
 	{
+		Arrays.fill(stack, 0, size, null);
 		size = 0;
+		++modCount;
+		shrinkIfSparse();
+	}
+	
+	// =========================================================================
+	
+	public void ensureCapacity(int minCapacity)
+	{
+		if (minCapacity > stack.length)
+			grow(minCapacity);
+	}
+	
+	/**
+	 * Shrinks the array to the size of the stack.
+	 */
+	public void trimToSize()
+	{
+		if (stack.length > size)
+			stack = Arrays.copyOf(stack, size);
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns an iterator from the bottom to the top of the stack.
+	 */
+	@Override
+	public Iterator<T> iterator()
+	{
+		return new Iterator<T>()
+		{
+			private final int expectedModCount = modCount;
+			
+			private int i = 0;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return i < size;
+			}
+			
+			@SuppressWarnings("unchecked")
+			@Override
+			public T next()
+			{
+				if (modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				
+				if (!hasNext())
+					throw new NoSuchElementException();
+				
+				return (T) stack[i++];
+			}
+			
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	// =========================================================================
+	
+	private void grow(int minCapacity)
+	{
+		long capacity = Math.max(
+		        (long) (stack.length * growthFactor),
+		        (long) stack.length + capacityIncrease);
+		
+		capacity = Math.max(capacity, minCapacity);
+		if (capacity > Integer.MAX_VALUE - 8)
+		{
+			if (minCapacity > Integer.MAX_VALUE - 8)
+				throw new OutOfMemoryError("Stack too large");
+			capacity = Integer.MAX_VALUE - 8;
+		}
+		
+		stack = Arrays.copyOf(stack, (int) capacity);
+	}
+	
+	private void shrinkIfSparse()
+	{
+		if (shrinkThreshold > 0
+		        && size <= stack.length * shrinkThreshold
+		        && stack.length > initialCapacity)
+			stack = Arrays.copyOf(stack, Math.max(initialCapacity, stack.length / 2));
 	}
 }
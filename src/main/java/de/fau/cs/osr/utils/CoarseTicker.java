@@ -0,0 +1,121 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A monotonic ticker whose time stamp is refreshed periodically by a daemon
+ * thread. Reading it is as cheap as reading a volatile field, which matters
+ * on VMs where the system's clock source is slow.
+ * 
+ * The time stamps are System.nanoTime() values from the last refresh, so
+ * they lag behind by up to the refresh interval (plus the scheduling delay of
+ * the refreshing thread).
+ */
+public final class CoarseTicker
+        implements
+            Ticker,
+            AutoCloseable
+{
+	private static final class DefaultHolder
+	{
+		static final CoarseTicker INSTANCE = new CoarseTicker(1, TimeUnit.MILLISECONDS);
+	}
+	
+	// =========================================================================
+	
+	private final long intervalNanos;
+	
+	private final Thread refresher;
+	
+	private volatile long now = System.nanoTime();
+	
+	private volatile boolean closed = false;
+	
+	// =========================================================================
+	
+	/**
+	 * Creates a ticker and starts its refreshing thread.
+	 */
+	public CoarseTicker(long interval, TimeUnit unit)
+	{
+		if (interval < 1)
+			throw new FmtIllegalArgumentException(
+			        "Refresh interval must be positive: %d", interval);
+		
+		this.intervalNanos = unit.toNanos(interval);
+		this.refresher = new Thread("coarse-ticker")
+		{
+			@Override
+			public void run()
+			{
+				while (!closed)
+				{
+					LockSupport.parkNanos(intervalNanos);
+					now = System.nanoTime();
+				}
+			}
+		};
+		this.refresher.setDaemon(true);
+		this.refresher.start();
+	}
+	
+	/**
+	 * Returns a shared ticker that is refreshed every millisecond. It is
+	 * created on first use and cannot be closed.
+	 */
+	public static CoarseTicker getDefault()
+	{
+		return DefaultHolder.INSTANCE;
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public long read()
+	{
+		return now;
+	}
+	
+	@Override
+	public TimeUnit getUnit()
+	{
+		return TimeUnit.NANOSECONDS;
+	}
+	
+	public long getInterval(TimeUnit unit)
+	{
+		return unit.convert(intervalNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Stops the refreshing thread. The ticker keeps returning the last time
+	 * stamp.
+	 */
+	@Override
+	public void close()
+	{
+		if (this == DefaultHolder.INSTANCE)
+			throw new UnsupportedOperationException("The default ticker cannot be closed");
+		
+		closed = true;
+		LockSupport.unpark(refresher);
+	}
+}
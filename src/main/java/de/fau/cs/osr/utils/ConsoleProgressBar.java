@@ -18,33 +18,54 @@
 package de.fau.cs.osr.utils;
 
 import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * A progress bar that is drawn on a single console line.
+ * 
+ * Progress can be reported from any number of threads. The counter is a
+ * LongAdder, so concurrent calls to advance() do not contend with each other.
+ * 
+ * By default the bar is redrawn by the thread that calls advance(), once
+ * every indicatorStep calls; only these calls synchronize on the bar.
+ * Alternatively startRenderer() starts a background thread that redraws the
+ * bar at a fixed rate; advance() then only increments the counter and never
+ * touches the console.
+ */
 public class ConsoleProgressBar
 {
 	/** 0% */
-	private int from;
+	private volatile int from;
 	
 	/** 100% */
-	private int to;
+	private volatile int to;
 	
-	private int cur;
+	private final LongAdder cur = new LongAdder();
 	
-	private float progress;
+	/** The progress as of the last call to update(), which is drawn. */
+	private volatile float progress;
 	
 	private int barLength;
 	
 	private int lineLength;
 	
-	private int indicatorStep;
+	private volatile int indicatorStep;
 	
 	private String percentageFormatString;
 	
 	private PrintStream out;
 	
-	private int numRedraw = 0;
+	/** Number of calls to advance() or goTo() since the last invalidate(). */
+	private final AtomicLong numRedraw = new AtomicLong();
+	
+	private int numFrames = 0;
 	
 	private String[] indicator = new String[] { "-", "\\", "|", "/" };
 	
+	private volatile Thread renderer;
+	
 	// =========================================================================
 	
 	public ConsoleProgressBar(int from, int to, int barLength)
@@ -76,7 +97,7 @@ public class ConsoleProgressBar
 		checkBounds(from, to);
 		this.from = from;
 		this.to = to;
-		this.cur = cur;
+		resetCur(cur);
 		update();
 	}
 	
@@ -106,12 +127,16 @@ public class ConsoleProgressBar
 	
 	public int getCur()
 	{
-		return cur;
+		return (int) cur.sum();
 	}
 	
+	/**
+	 * Sets the counter to the given value. Calls to advance() that happen
+	 * concurrently may be lost.
+	 */
 	public void setCur(int cur)
 	{
-		this.cur = cur;
+		resetCur(cur);
 		update();
 	}
 	
@@ -121,29 +146,29 @@ public class ConsoleProgressBar
 			throw new FmtIllegalArgumentException("Illegal bounds!");
 	}
 	
-	public PrintStream getOut()
+	public synchronized PrintStream getOut()
 	{
 		return out;
 	}
 	
-	public void setOut(PrintStream out)
+	public synchronized void setOut(PrintStream out)
 	{
 		this.out = out;
 	}
 	
 	public float getProgress()
 	{
-		return progress;
+		return (this.cur.sum() - this.from) / (float) (this.to - this.from);
 	}
 	
 	// =========================================================================
 	
-	public int getBarLength()
+	public synchronized int getBarLength()
 	{
 		return barLength;
 	}
 	
-	public void setBarLength(int barLength)
+	public synchronized void setBarLength(int barLength)
 	{
 		invalidate();
 		this.barLength = barLength;
@@ -154,18 +179,22 @@ public class ConsoleProgressBar
 		return indicatorStep;
 	}
 	
-	public void setIndicatorStep(int indicatorStep)
+	/**
+	 * Sets the number of calls to advance() or goTo() per redraw. Has no
+	 * effect while the renderer thread is running.
+	 */
+	public synchronized void setIndicatorStep(int indicatorStep)
 	{
 		invalidate();
 		this.indicatorStep = indicatorStep;
 	}
 	
-	public String getPercentageFormatString()
+	public synchronized String getPercentageFormatString()
 	{
 		return percentageFormatString;
 	}
 	
-	public void setPercentageFormatString(String percentageFormatString)
+	public synchronized void setPercentageFormatString(String percentageFormatString)
 	{
 		invalidate();
 		this.percentageFormatString = percentageFormatString;
@@ -173,7 +202,7 @@ public class ConsoleProgressBar
 	
 	private void invalidate()
 	{
-		this.numRedraw = 0;
+		this.numRedraw.set(0);
 	}
 	
 	// =========================================================================
@@ -185,62 +214,153 @@ public class ConsoleProgressBar
 	
 	public void advance(int step)
 	{
-		goTo(this.cur + step);
+		cur.add(step);
+		if (renderer == null)
+			internalRedraw();
 	}
 	
 	public void goTo(int cur)
 	{
 		setCur(cur);
-		internalRedraw();
+		if (renderer == null)
+			internalRedraw();
 	}
 	
 	private void internalRedraw()
 	{
-		if (this.numRedraw % this.indicatorStep == 0)
-			redraw();
+		if (this.numRedraw.getAndIncrement() % this.indicatorStep == 0)
+			render();
+	}
+	
+	private void resetCur(int cur)
+	{
+		this.cur.reset();
+		this.cur.add(cur);
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Starts a daemon thread that redraws the bar ten times per second.
+	 */
+	public void startRenderer()
+	{
+		startRenderer(100, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Starts a daemon thread that redraws the bar at the given interval until
+	 * stopRenderer() is called. While the renderer is running, advance() and
+	 * goTo() do not redraw the bar.
+	 * 
+	 * @throws IllegalStateException
+	 *             If the renderer is already running.
+	 */
+	public synchronized void startRenderer(long interval, TimeUnit unit)
+	{
+		if (renderer != null)
+			throw new IllegalStateException("Renderer is already running");
+		if (interval < 1)
+			throw new FmtIllegalArgumentException(
+			        "Interval must be positive: %d", interval);
 		
-		++this.numRedraw;
+		final long intervalMillis = Math.max(1, unit.toMillis(interval));
+		Thread thread = new Thread("console-progress-bar")
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					while (renderer == this)
+					{
+						render();
+						Thread.sleep(intervalMillis);
+					}
+				}
+				catch (InterruptedException e)
+				{
+					// Stopped
+				}
+			}
+		};
+		thread.setDaemon(true);
+		
+		renderer = thread;
+		thread.start();
+	}
+	
+	/**
+	 * Stops the renderer thread, waits for it to terminate and draws the bar
+	 * a last time so that the final progress is shown.
+	 */
+	public void stopRenderer() throws InterruptedException
+	{
+		Thread thread;
+		synchronized (this)
+		{
+			thread = renderer;
+			if (thread == null)
+				return;
+			renderer = null;
+		}
+		
+		thread.interrupt();
+		thread.join();
+		render();
+	}
+	
+	public boolean isRendererRunning()
+	{
+		return renderer != null;
+	}
+	
+	private synchronized void render()
+	{
+		update();
+		redraw();
+		++this.numFrames;
 	}
 	
 	// =========================================================================
 	
 	public void update()
 	{
-		this.progress = (this.cur - this.from) / (float) (this.to - this.from);
+		this.progress = getProgress();
 	}
 	
-	public void redraw()
+	public synchronized void redraw()
 	{
 		String bar;
 		String done;
 		String space;
 		
-		if (this.progress <= 0.f)
+		float progress = this.progress;
+		if (progress <= 0.f)
 		{
 			done = "";
 			space = StringUtils.strrep(' ', this.barLength);
 		}
-		else if (this.progress >= 1.f)
+		else if (progress >= 1.f)
 		{
 			done = StringUtils.strrep('=', this.barLength);
 			space = "";
 		}
 		else
 		{
-			int numDone = (int) (this.barLength * this.progress);
+			int numDone = (int) (this.barLength * progress);
 			done = StringUtils.strrep('=', numDone);
 			space = StringUtils.strrep(' ', this.barLength - numDone);
 		}
 		
-		int indPos =
-		        (this.numRedraw / this.indicatorStep) % this.indicator.length;
+		int indPos = this.numFrames % this.indicator.length;
 		
 		bar = String.format(
 		        "|%s%s|%s " + this.percentageFormatString,
 		        done,
 		        space,
 		        this.indicator[indPos],
-		        this.progress * 100.f);
+		        progress * 100.f);
 		
 		int len = bar.length();
 		if (len < this.lineLength)
@@ -250,7 +370,7 @@ public class ConsoleProgressBar
 		this.out.print(bar + '\r');
 	}
 	
-	public void clear()
+	public synchronized void clear()
 	{
 		out.print(StringUtils.strrep(' ', this.lineLength) + '\r');
 	}
@@ -0,0 +1,151 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which an operation must complete. A deadline can be
+ * passed down through nested calls, which check how much of the time budget
+ * remains and may restrict it further for sub-operations.
+ * 
+ * <pre>
+ * Deadline d = Deadline.after(2, TimeUnit.SECONDS);
+ * parse(doc, d.restrict(500, TimeUnit.MILLISECONDS));
+ * render(doc, d);
+ * </pre>
+ * 
+ * Deadlines are measured on a Ticker (System.nanoTime() by default).
+ * Durations are capped at about 70 years, which is treated as "no deadline".
+ * Instances are immutable.
+ */
+public final class Deadline
+        implements
+            Comparable<Deadline>
+{
+	private static final long MAX_NANOS = Long.MAX_VALUE >> 2;
+	
+	private final Ticker ticker;
+	
+	/** The time stamp of the deadline in nanoseconds of the ticker. */
+	private final long deadlineNanos;
+	
+	// =========================================================================
+	
+	private Deadline(Ticker ticker, long deadlineNanos)
+	{
+		this.ticker = ticker;
+		this.deadlineNanos = deadlineNanos;
+	}
+	
+	/**
+	 * Returns a deadline the given duration from now.
+	 */
+	public static Deadline after(long duration, TimeUnit unit)
+	{
+		return after(duration, unit, Tickers.system());
+	}
+	
+	/**
+	 * Returns a deadline the given duration from now as measured by the given
+	 * ticker.
+	 */
+	public static Deadline after(long duration, TimeUnit unit, Ticker ticker)
+	{
+		return at(Tickers.readNanos(ticker), duration, unit, ticker);
+	}
+	
+	/**
+	 * Returns a deadline the given duration after the given time stamp.
+	 */
+	static Deadline at(long startNanos, long duration, TimeUnit unit, Ticker ticker)
+	{
+		long nanos = Math.max(-MAX_NANOS, Math.min(MAX_NANOS, unit.toNanos(duration)));
+		return new Deadline(ticker, startNanos + nanos);
+	}
+	
+	// =========================================================================
+	
+	public Ticker getTicker()
+	{
+		return ticker;
+	}
+	
+	/**
+	 * Returns the time remaining until the deadline, or 0 if it has expired.
+	 */
+	public long remaining(TimeUnit unit)
+	{
+		long nanos = deadlineNanos - Tickers.readNanos(ticker);
+		return (nanos <= 0) ? 0 : unit.convert(nanos, TimeUnit.NANOSECONDS);
+	}
+	
+	public boolean isExpired()
+	{
+		return deadlineNanos - Tickers.readNanos(ticker) <= 0;
+	}
+	
+	/**
+	 * @throws DeadlineExceededException
+	 *             If the deadline has expired.
+	 */
+	public void check()
+	{
+		long overdue = Tickers.readNanos(ticker) - deadlineNanos;
+		if (overdue >= 0)
+			throw new DeadlineExceededException(
+			        "Deadline exceeded by %d ms", TimeUnit.NANOSECONDS.toMillis(overdue));
+	}
+	
+	/**
+	 * Returns the earlier of this deadline and a deadline the given duration
+	 * from now, i.e. a budget for a sub-operation that must not exceed the
+	 * budget of the enclosing operation.
+	 */
+	public Deadline restrict(long duration, TimeUnit unit)
+	{
+		return min(after(duration, unit, ticker));
+	}
+	
+	/**
+	 * Returns the earlier of this and the given deadline. Both deadlines must
+	 * be measured on the same ticker.
+	 */
+	public Deadline min(Deadline other)
+	{
+		return (compareTo(other) <= 0) ? this : other;
+	}
+	
+	@Override
+	public int compareTo(Deadline other)
+	{
+		if (other.ticker != ticker)
+			throw new FmtIllegalArgumentException(
+			        "Cannot compare deadlines measured on different tickers");
+		return Long.signum(deadlineNanos - other.deadlineNanos);
+	}
+	
+	@Override
+	public String toString()
+	{
+		long nanos = deadlineNanos - Tickers.readNanos(ticker);
+		return String.format("Deadline[%s %.3f ms]",
+		        (nanos < 0) ? "expired" : "in",
+		        Math.abs(nanos) / 1e6);
+	}
+}
@@ -0,0 +1,324 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A RingBuffer specialized for `int' values. Adding a value never
+ * allocates. If the buffer is full, adding a value overwrites the oldest
+ * value.
+ * 
+ * Values are indexed from the oldest (index 0) to the newest value. Iterators
+ * are fail-fast. This class is not thread-safe.
+ * 
+ * @see RingBuffer
+ */
+public class IntRingBuffer
+{
+	private final int[] buffer;
+	
+	/** Capacity - 1 if the capacity is a power of two, -1 otherwise. */
+	private final int mask;
+	
+	private int fill = 0;
+	
+	private int start = 0;
+	
+	private int modCount = 0;
+	
+	// =========================================================================
+	
+	public IntRingBuffer(int capacity)
+	{
+		this(capacity, false);
+	}
+	
+	/**
+	 * @param capacity
+	 *            The maximum number of values kept in the buffer.
+	 * @param roundToPowerOfTwo
+	 *            If true, the capacity is rounded up to the next power of two
+	 *            so that indices can be computed by bit masking.
+	 */
+	public IntRingBuffer(int capacity, boolean roundToPowerOfTwo)
+	{
+		if (capacity < 1)
+			throw new FmtIllegalArgumentException(
+			        "Capacity must be positive: %d", capacity);
+		
+		if (roundToPowerOfTwo)
+		{
+			if (capacity > (1 << 30))
+				throw new FmtIllegalArgumentException(
+				        "Capacity too large: %d", capacity);
+			capacity = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		}
+		
+		this.buffer = new int[capacity];
+		this.mask = ((capacity & (capacity - 1)) == 0) ? capacity - 1 : -1;
+	}
+	
+	// =========================================================================
+	
+	public int size()
+	{
+		return fill;
+	}
+	
+	public int getCapacity()
+	{
+		return buffer.length;
+	}
+	
+	public boolean isEmpty()
+	{
+		return fill == 0;
+	}
+	
+	public boolean isFull()
+	{
+		return fill == buffer.length;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Appends a value, overwriting the oldest value if the buffer is full.
+	 */
+	public void add(int x)
+	{
+		if (fill == buffer.length)
+		{
+			buffer[start] = x;
+			start = wrap(start + 1);
+		}
+		else
+		{
+			buffer[wrap(start + fill)] = x;
+			++fill;
+		}
+		++modCount;
+	}
+	
+	/**
+	 * Appends the values src[offset] to src[offset + length - 1]. If there are
+	 * more values than the buffer can hold, only the last values are retained.
+	 */
+	public void addAll(int[] src, int offset, int length)
+	{
+		if (offset < 0 || length < 0 || offset + length > src.length)
+			throw new IndexOutOfBoundsException();
+		
+		int capacity = buffer.length;
+		if (length >= capacity)
+		{
+			System.arraycopy(src, offset + length - capacity, buffer, 0, capacity);
+			start = 0;
+			fill = capacity;
+		}
+		else if (length > 0)
+		{
+			int end = wrap(start + fill);
+			int first = Math.min(length, capacity - end);
+			System.arraycopy(src, offset, buffer, end, first);
+			System.arraycopy(src, offset + first, buffer, 0, length - first);
+			
+			int overflow = fill + length - capacity;
+			if (overflow > 0)
+			{
+				start = wrap(start + overflow);
+				fill = capacity;
+			}
+			else
+			{
+				fill += length;
+			}
+		}
+		++modCount;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns the value at the given index. Index 0 denotes the oldest value,
+	 * index size() - 1 the newest.
+	 */
+	public int get(int index)
+	{
+		if (index < 0 || index >= fill)
+			throw new IndexOutOfBoundsException(
+			        "Index: " + index + ", Size: " + fill);
+		return buffer[wrap(start + index)];
+	}
+	
+	/**
+	 * @throws NoSuchElementException
+	 *             If the buffer is empty.
+	 */
+	public int peekFirst()
+	{
+		if (fill == 0)
+			throw new NoSuchElementException();
+		return buffer[start];
+	}
+	
+	/**
+	 * @throws NoSuchElementException
+	 *             If the buffer is empty.
+	 */
+	public int peekLast()
+	{
+		if (fill == 0)
+			throw new NoSuchElementException();
+		return buffer[wrap(start + fill - 1)];
+	}
+	
+	/**
+	 * Removes and returns the oldest value.
+	 * 
+	 * @throws NoSuchElementException
+	 *             If the buffer is empty.
+	 */
+	public int removeFirst()
+	{
+		if (fill == 0)
+			throw new NoSuchElementException();
+		
+		int x = buffer[start];
+		start = wrap(start + 1);
+		--fill;
+		++modCount;
+		return x;
+	}
+	
+	/**
+	 * Removes and returns the newest value.
+	 * 
+	 * @throws NoSuchElementException
+	 *             If the buffer is empty.
+	 */
+	public int removeLast()
+	{
+		if (fill == 0)
+			throw new NoSuchElementException();
+		
+		int x = buffer[wrap(start + fill - 1)];
+		--fill;
+		++modCount;
+		return x;
+	}
+	
+	public void clear()
+	{
+		start = 0;
+		fill = 0;
+		++modCount;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns the values from oldest to newest.
+	 */
+	public int[] toArray()
+	{
+		int[] dest = new int[fill];
+		copyTo(dest, 0);
+		return dest;
+	}
+	
+	/**
+	 * Copies the values from oldest to newest into the given array, starting
+	 * at index destPos.
+	 * 
+	 * @return The number of values copied.
+	 */
+	public int copyTo(int[] dest, int destPos)
+	{
+		if (destPos < 0 || destPos + fill > dest.length)
+			throw new IndexOutOfBoundsException();
+		
+		int first = Math.min(fill, buffer.length - start);
+		System.arraycopy(buffer, start, dest, destPos, first);
+		System.arraycopy(buffer, 0, dest, destPos + first, fill - first);
+		return fill;
+	}
+	
+	/**
+	 * Moves all values into the given array, starting at index destPos, and
+	 * clears the buffer.
+	 * 
+	 * @return The number of values moved.
+	 */
+	public int drainTo(int[] dest, int destPos)
+	{
+		int n = copyTo(dest, destPos);
+		clear();
+		return n;
+	}
+	
+	/**
+	 * Returns an iterator from the oldest to the newest value.
+	 */
+	public PrimitiveIterator.OfInt iterator()
+	{
+		return new PrimitiveIterator.OfInt()
+		{
+			private final int expectedModCount = modCount;
+			
+			private int i = 0;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return i < fill;
+			}
+			
+			@Override
+			public int nextInt()
+			{
+				if (modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				
+				if (!hasNext())
+					throw new NoSuchElementException();
+				
+				return get(i++);
+			}
+		};
+	}
+	
+	@Override
+	public String toString()
+	{
+		return Arrays.toString(toArray());
+	}
+	
+	// =========================================================================
+	
+	private int wrap(int i)
+	{
+		if (mask != -1)
+			return i & mask;
+		return (i >= buffer.length) ? i - buffer.length : i;
+	}
+}
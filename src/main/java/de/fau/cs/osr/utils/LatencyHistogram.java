@@ -0,0 +1,347 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records values (usually latencies in nanoseconds) in log-linear buckets and
+ * answers percentile queries with a bounded relative error, without storing
+ * the individual values.
+ * 
+ * The precision is given as a number of significant decimal digits: with 3
+ * digits a reported percentile differs from the exact value by less than
+ * 0.1%. Values above the highest trackable value are counted in the highest
+ * bucket; minimum, maximum and mean are always exact.
+ * 
+ * Recording is lock-free. To reduce contention, the counters are striped:
+ * each thread records into one of several copies of the buckets, chosen by
+ * its thread ID. snapshot() sums up the stripes. Snapshots taken while
+ * values are recorded concurrently may not reflect a single point in time.
+ */
+public class LatencyHistogram
+{
+	private final long highestTrackableValue;
+	
+	private final int significantDigits;
+	
+	private final LogLinearBuckets layout;
+	
+	private final int bucketCount;
+	
+	private final Stripe[] stripes;
+	
+	// =========================================================================
+	
+	/**
+	 * Creates a histogram with one stripe per available processor (rounded up
+	 * to a power of two, at most 16).
+	 */
+	public LatencyHistogram(long highestTrackableValue, int significantDigits)
+	{
+		this(
+		        highestTrackableValue,
+		        significantDigits,
+		        Math.min(16, Runtime.getRuntime().availableProcessors()));
+	}
+	
+	/**
+	 * @param highestTrackableValue
+	 *            The highest value that is recorded with the requested
+	 *            precision, e.g. TimeUnit.MINUTES.toNanos(10).
+	 * @param significantDigits
+	 *            The precision of recorded values, in [1, 5].
+	 * @param stripes
+	 *            The number of copies of the buckets threads record into.
+	 *            Rounded up to a power of two.
+	 */
+	public LatencyHistogram(
+	        long highestTrackableValue,
+	        int significantDigits,
+	        int stripes)
+	{
+		if (highestTrackableValue < 1)
+			throw new FmtIllegalArgumentException(
+			        "Highest trackable value must be positive: %d",
+			        highestTrackableValue);
+		
+		if (stripes < 1 || stripes > 1024)
+			throw new FmtIllegalArgumentException(
+			        "Number of stripes must be in [1, 1024]: %d", stripes);
+		
+		this.highestTrackableValue = highestTrackableValue;
+		this.significantDigits = significantDigits;
+		this.layout = LogLinearBuckets.forSignificantDigits(significantDigits);
+		this.bucketCount = layout.count(highestTrackableValue);
+		
+		int n = (stripes == 1) ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+		this.stripes = new Stripe[n];
+		for (int i = 0; i < n; ++i)
+			this.stripes[i] = new Stripe(bucketCount);
+	}
+	
+	// =========================================================================
+	
+	public long getHighestTrackableValue()
+	{
+		return highestTrackableValue;
+	}
+	
+	public int getSignificantDigits()
+	{
+		return significantDigits;
+	}
+	
+	public void record(long value)
+	{
+		record(value, 1);
+	}
+	
+	/**
+	 * Records the given value count times.
+	 */
+	public void record(long value, long count)
+	{
+		if (value < 0)
+			throw new FmtIllegalArgumentException(
+			        "Values must not be negative: %d", value);
+		if (count < 1)
+			return;
+		
+		int bucket = layout.index(Math.min(value, highestTrackableValue));
+		
+		Stripe s = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+		s.counts.addAndGet(bucket, count);
+		s.count.addAndGet(count);
+		s.sum.addAndGet(value * count);
+		
+		long min;
+		while (value < (min = s.min.get()) && !s.min.compareAndSet(min, value))
+			;
+		long max;
+		while (value > (max = s.max.get()) && !s.max.compareAndSet(max, value))
+			;
+	}
+	
+	/**
+	 * Records the elapsed time of the given watch in nanoseconds.
+	 */
+	public void record(StopWatch watch)
+	{
+		record(watch.getElapsedTime(TimeUnit.NANOSECONDS));
+	}
+	
+	/**
+	 * Discards all recorded values. Values recorded concurrently may or may
+	 * not be discarded.
+	 */
+	public void reset()
+	{
+		for (Stripe s : stripes)
+		{
+			for (int i = 0; i < bucketCount; ++i)
+				s.counts.set(i, 0);
+			s.count.set(0);
+			s.sum.set(0);
+			s.min.set(Long.MAX_VALUE);
+			s.max.set(Long.MIN_VALUE);
+		}
+	}
+	
+	public Snapshot snapshot()
+	{
+		long[] counts = new long[bucketCount];
+		long count = 0;
+		long sum = 0;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (Stripe s : stripes)
+		{
+			for (int i = 0; i < bucketCount; ++i)
+				counts[i] += s.counts.get(i);
+			count += s.count.get();
+			sum += s.sum.get();
+			min = Math.min(min, s.min.get());
+			max = Math.max(max, s.max.get());
+		}
+		return new Snapshot(layout, counts, count, sum, min, max);
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * An immutable copy of the recorded values of a histogram.
+	 */
+	public static final class Snapshot
+	{
+		private final LogLinearBuckets layout;
+		
+		private final long[] counts;
+		
+		private final long count;
+		
+		private final long sum;
+		
+		private final long min;
+		
+		private final long max;
+		
+		private Snapshot(
+		        LogLinearBuckets layout,
+		        long[] counts,
+		        long count,
+		        long sum,
+		        long min,
+		        long max)
+		{
+			this.layout = layout;
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.min = min;
+			this.max = max;
+		}
+		
+		public long getCount()
+		{
+			return count;
+		}
+		
+		public long getSum()
+		{
+			return sum;
+		}
+		
+		/**
+		 * Returns the smallest recorded value or 0 if the snapshot is empty.
+		 */
+		public long getMin()
+		{
+			return (count == 0) ? 0 : min;
+		}
+		
+		/**
+		 * Returns the largest recorded value or 0 if the snapshot is empty.
+		 */
+		public long getMax()
+		{
+			return (count == 0) ? 0 : max;
+		}
+		
+		/**
+		 * Returns the mean of the recorded values or NaN if the snapshot is
+		 * empty.
+		 */
+		public double getMean()
+		{
+			return (count == 0) ? Double.NaN : (double) sum / count;
+		}
+		
+		/**
+		 * Returns the value at the given percentile, i.e. the smallest value
+		 * such that the given percentage of the recorded values is less than
+		 * or equal to it (within the precision of the histogram).
+		 * 
+		 * @param percentile
+		 *            A percentile in [0, 100].
+		 * @return The value or 0 if the snapshot is empty.
+		 */
+		public long getPercentile(double percentile)
+		{
+			if (!(percentile >= 0 && percentile <= 100))
+				throw new FmtIllegalArgumentException(
+				        "Percentile must be in [0, 100]: %f", percentile);
+			
+			if (count == 0)
+				return 0;
+			
+			long rank = Math.max(1, (long) Math.ceil(percentile / 100. * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length - 1; ++i)
+			{
+				seen += counts[i];
+				if (seen >= rank)
+					return Math.max(min, Math.min(max, layout.upperBound(i)));
+			}
+			
+			// The highest bucket also holds values above the trackable range
+			return max;
+		}
+		
+		/**
+		 * Returns a snapshot containing the values of both snapshots. Both
+		 * snapshots must have been taken from histograms with the same
+		 * highest trackable value and precision.
+		 */
+		public Snapshot merge(Snapshot other)
+		{
+			if (other.layout.getSubBucketBits() != layout.getSubBucketBits()
+			        || other.counts.length != counts.length)
+				throw new FmtIllegalArgumentException(
+				        "Cannot merge snapshots of differently configured histograms");
+			
+			long[] merged = counts.clone();
+			for (int i = 0; i < merged.length; ++i)
+				merged[i] += other.counts[i];
+			
+			return new Snapshot(
+			        layout,
+			        merged,
+			        count + other.count,
+			        sum + other.sum,
+			        Math.min(min, other.min),
+			        Math.max(max, other.max));
+		}
+		
+		@Override
+		public String toString()
+		{
+			return String.format(
+			        "count=%d, mean=%.1f, p50=%d, p90=%d, p99=%d, p99.9=%d, max=%d",
+			        count,
+			        getMean(),
+			        getPercentile(50),
+			        getPercentile(90),
+			        getPercentile(99),
+			        getPercentile(99.9),
+			        getMax());
+		}
+	}
+	
+	// =========================================================================
+	
+	private static final class Stripe
+	{
+		final AtomicLongArray counts;
+		
+		final AtomicLong count = new AtomicLong();
+		
+		final AtomicLong sum = new AtomicLong();
+		
+		final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+		
+		final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+		
+		Stripe(int buckets)
+		{
+			this.counts = new AtomicLongArray(buckets);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+/**
+ * Maps non-negative values to log-linear buckets: values below
+ * 2^subBucketBits get a bucket each, larger values are divided into ranges
+ * [2^e, 2^(e+1)) which are each split into 2^(subBucketBits - 1) buckets of
+ * equal width. The width of a bucket is therefore less than 2^-(subBucketBits
+ * - 1) times its lower bound.
+ */
+final class LogLinearBuckets
+{
+	private final int subBucketBits;
+	
+	private final int halfSubBuckets;
+	
+	// =========================================================================
+	
+	LogLinearBuckets(int subBucketBits)
+	{
+		if (subBucketBits < 2 || subBucketBits > 24)
+			throw new FmtIllegalArgumentException(
+			        "Sub-bucket bits must be in [2, 24]: %d", subBucketBits);
+		
+		this.subBucketBits = subBucketBits;
+		this.halfSubBuckets = 1 << (subBucketBits - 1);
+	}
+	
+	/**
+	 * Returns buckets that distinguish values which differ in the given number
+	 * of significant decimal digits.
+	 */
+	static LogLinearBuckets forSignificantDigits(int digits)
+	{
+		if (digits < 1 || digits > 5)
+			throw new FmtIllegalArgumentException(
+			        "Significant digits must be in [1, 5]: %d", digits);
+		
+		long required = 2;
+		for (int i = 0; i < digits; ++i)
+			required *= 10;
+		return new LogLinearBuckets(64 - Long.numberOfLeadingZeros(required - 1));
+	}
+	
+	// =========================================================================
+	
+	int getSubBucketBits()
+	{
+		return subBucketBits;
+	}
+	
+	/**
+	 * Returns the number of buckets needed to hold values up to the given
+	 * maximum.
+	 */
+	int count(long maxValue)
+	{
+		return index(maxValue) + 1;
+	}
+	
+	int index(long value)
+	{
+		if (value < (1 << subBucketBits))
+			return (int) value;
+		
+		int exponent = (63 - Long.numberOfLeadingZeros(value)) - (subBucketBits - 1);
+		return exponent * halfSubBuckets + (int) (value >>> exponent);
+	}
+	
+	long lowerBound(int bucket)
+	{
+		if (bucket < (1 << subBucketBits))
+			return bucket;
+		
+		int exponent = bucket / halfSubBuckets - 1;
+		long mantissa = bucket - exponent * halfSubBuckets;
+		return mantissa << exponent;
+	}
+	
+	/**
+	 * Returns the largest value in the given bucket.
+	 */
+	long upperBound(int bucket)
+	{
+		return lowerBound(bucket) + width(bucket) - 1;
+	}
+	
+	/**
+	 * Returns the mid-point of the given bucket's range.
+	 */
+	long midpoint(int bucket)
+	{
+		return lowerBound(bucket) + (width(bucket) >>> 1);
+	}
+	
+	// =========================================================================
+	
+	private long width(int bucket)
+	{
+		if (bucket < (1 << subBucketBits))
+			return 1;
+		return 1L << (bucket / halfSubBuckets - 1);
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ticker that only advances when told to, for deterministic tests of code
+ * that measures time. This class is thread-safe.
+ */
+public final class ManualTicker
+        implements
+            Ticker
+{
+	private final AtomicLong nanos;
+	
+	// =========================================================================
+	
+	public ManualTicker()
+	{
+		this(0);
+	}
+	
+	/**
+	 * @param nanos
+	 *            The initial time stamp in nanoseconds.
+	 */
+	public ManualTicker(long nanos)
+	{
+		this.nanos = new AtomicLong(nanos);
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public long read()
+	{
+		return nanos.get();
+	}
+	
+	@Override
+	public TimeUnit getUnit()
+	{
+		return TimeUnit.NANOSECONDS;
+	}
+	
+	/**
+	 * Advances the time stamp by the given amount.
+	 */
+	public ManualTicker advance(long amount, TimeUnit unit)
+	{
+		nanos.addAndGet(unit.toNanos(amount));
+		return this;
+	}
+	
+	public ManualTicker set(long nanos)
+	{
+		this.nanos.set(nanos);
+		return this;
+	}
+}
@@ -0,0 +1,261 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A ring buffer of binary records stored in a memory-mapped file. Once a
+ * record has been appended it survives a crash or kill of the JVM since the
+ * mapped pages belong to the operating system. The most recent records can be
+ * recovered with {@link MappedRingBufferReader}.
+ * 
+ * Records can be of any size up to the capacity of the buffer minus
+ * RECORD_OVERHEAD bytes. If the buffer is full, the oldest records are
+ * overwritten. Each record is framed by its length (before and after the
+ * payload) and a sequence number, which allows a reader to walk the records
+ * backwards from the most recent one. The write position in the file header
+ * is only updated after a record has been written completely.
+ * 
+ * Appending is thread-safe. To also survive a power failure, call force().
+ */
+public class MappedRingBuffer
+        implements
+            Closeable
+{
+	static final int MAGIC = 0x4F525242;
+	
+	static final int VERSION = 1;
+	
+	static final int OFFSET_MAGIC = 0;
+	
+	static final int OFFSET_VERSION = 4;
+	
+	static final int OFFSET_CAPACITY = 8;
+	
+	static final int OFFSET_WRITE_POSITION = 16;
+	
+	static final int OFFSET_NEXT_SEQUENCE = 24;
+	
+	static final int HEADER_SIZE = 64;
+	
+	/** Leading length (4 bytes), sequence number (8), trailing length (4). */
+	public static final int RECORD_OVERHEAD = 16;
+	
+	// =========================================================================
+	
+	private final RandomAccessFile file;
+	
+	private final MappedByteBuffer map;
+	
+	private final int capacity;
+	
+	private final byte[] frame = new byte[RECORD_OVERHEAD];
+	
+	private long writePosition;
+	
+	private long nextSequence;
+	
+	// =========================================================================
+	
+	/**
+	 * Opens the given file as ring buffer. If the file already contains a ring
+	 * buffer of the same capacity, new records are appended to the existing
+	 * ones. Otherwise the file is (re-)initialized.
+	 * 
+	 * @param capacity
+	 *            The number of bytes available for records, including the
+	 *            framing of each record.
+	 */
+	public MappedRingBuffer(File path, int capacity) throws IOException
+	{
+		if (capacity < RECORD_OVERHEAD + 1 || capacity > Integer.MAX_VALUE - HEADER_SIZE)
+			throw new FmtIllegalArgumentException(
+					"Illegal capacity: %d", capacity);
+		
+		this.capacity = capacity;
+		this.file = new RandomAccessFile(path, "rw");
+		try
+		{
+			this.file.setLength(HEADER_SIZE + capacity);
+			this.map = file.getChannel().map(
+					MapMode.READ_WRITE,
+					0,
+					HEADER_SIZE + capacity);
+		}
+		catch (IOException e)
+		{
+			file.close();
+			throw e;
+		}
+		
+		if (map.getInt(OFFSET_MAGIC) == MAGIC
+				&& map.getInt(OFFSET_VERSION) == VERSION
+				&& map.getInt(OFFSET_CAPACITY) == capacity)
+		{
+			this.writePosition = map.getLong(OFFSET_WRITE_POSITION);
+			this.nextSequence = map.getLong(OFFSET_NEXT_SEQUENCE);
+		}
+		else
+		{
+			this.writePosition = 0;
+			this.nextSequence = 0;
+			map.putLong(OFFSET_WRITE_POSITION, 0);
+			map.putLong(OFFSET_NEXT_SEQUENCE, 0);
+			map.putInt(OFFSET_CAPACITY, capacity);
+			map.putInt(OFFSET_VERSION, VERSION);
+			map.putInt(OFFSET_MAGIC, MAGIC);
+		}
+	}
+	
+	// =========================================================================
+	
+	public int getCapacity()
+	{
+		return capacity;
+	}
+	
+	/**
+	 * Returns the largest payload a single record can have.
+	 */
+	public int getMaxRecordSize()
+	{
+		return capacity - RECORD_OVERHEAD;
+	}
+	
+	/**
+	 * Returns the sequence number the next record will get.
+	 */
+	public synchronized long getNextSequence()
+	{
+		return nextSequence;
+	}
+	
+	// =========================================================================
+	
+	public long append(byte[] data)
+	{
+		return append(data, 0, data.length);
+	}
+	
+	/**
+	 * Appends a record, overwriting the oldest records if necessary.
+	 * 
+	 * @return The sequence number of the record.
+	 */
+	public synchronized long append(byte[] data, int offset, int length)
+	{
+		if (offset < 0 || length < 0 || offset + length > data.length)
+			throw new IndexOutOfBoundsException();
+		
+		if (length > getMaxRecordSize())
+			throw new FmtIllegalArgumentException(
+					"Record of %d bytes exceeds maximum record size of %d bytes",
+					length,
+					getMaxRecordSize());
+		
+		long sequence = nextSequence;
+		long pos = writePosition;
+		
+		putInt(frame, 0, length);
+		putLong(frame, 4, sequence);
+		putInt(frame, 12, length);
+		
+		pos = write(pos, frame, 0, 12);
+		pos = write(pos, data, offset, length);
+		pos = write(pos, frame, 12, 4);
+		
+		writePosition = pos;
+		nextSequence = sequence + 1;
+		
+		// Commit: a reader only considers data below the write position
+		map.putLong(OFFSET_NEXT_SEQUENCE, nextSequence);
+		map.putLong(OFFSET_WRITE_POSITION, writePosition);
+		
+		return sequence;
+	}
+	
+	/**
+	 * Writes the mapped pages to the storage device.
+	 */
+	public synchronized void force()
+	{
+		map.force();
+	}
+	
+	/**
+	 * Closes the underlying file. The mapping itself is released when this
+	 * object is garbage collected.
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		file.close();
+	}
+	
+	// =========================================================================
+	
+	private long write(long pos, byte[] src, int offset, int length)
+	{
+		int index = (int) (pos % capacity);
+		int first = Math.min(length, capacity - index);
+		
+		map.position(HEADER_SIZE + index);
+		map.put(src, offset, first);
+		if (first < length)
+		{
+			map.position(HEADER_SIZE);
+			map.put(src, offset + first, length - first);
+		}
+		
+		return pos + length;
+	}
+	
+	static void putInt(byte[] b, int i, int v)
+	{
+		b[i] = (byte) (v >>> 24);
+		b[i + 1] = (byte) (v >>> 16);
+		b[i + 2] = (byte) (v >>> 8);
+		b[i + 3] = (byte) v;
+	}
+	
+	static void putLong(byte[] b, int i, long v)
+	{
+		putInt(b, i, (int) (v >>> 32));
+		putInt(b, i + 4, (int) v);
+	}
+	
+	static int getInt(byte[] b, int i)
+	{
+		return ((b[i] & 0xFF) << 24)
+				| ((b[i + 1] & 0xFF) << 16)
+				| ((b[i + 2] & 0xFF) << 8)
+				| (b[i + 3] & 0xFF);
+	}
+	
+	static long getLong(byte[] b, int i)
+	{
+		return ((long) getInt(b, i) << 32) | (getInt(b, i + 4) & 0xFFFFFFFFL);
+	}
+}
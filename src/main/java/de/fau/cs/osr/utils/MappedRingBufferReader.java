@@ -0,0 +1,173 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recovers the records of a {@link MappedRingBuffer} from its file, e.g. after
+ * the writing process crashed. Records that have been partially overwritten or
+ * were still being written when the writer died are skipped.
+ */
+public final class MappedRingBufferReader
+{
+	public static final class Record
+	{
+		private final long sequence;
+		
+		private final byte[] data;
+		
+		public Record(long sequence, byte[] data)
+		{
+			this.sequence = sequence;
+			this.data = data;
+		}
+		
+		public long getSequence()
+		{
+			return sequence;
+		}
+		
+		public byte[] getData()
+		{
+			return data;
+		}
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Read all intact records from the given file.
+	 * 
+	 * @return The records ordered from oldest to newest.
+	 * @throws IOException
+	 *             If the file cannot be read or does not contain a ring buffer.
+	 */
+	public static List<Record> read(File path) throws IOException
+	{
+		byte[] content;
+		RandomAccessFile file = new RandomAccessFile(path, "r");
+		try
+		{
+			long length = file.length();
+			if (length < MappedRingBuffer.HEADER_SIZE || length > Integer.MAX_VALUE)
+				throw new IOException(String.format(
+						"File `%s' is not a ring buffer", path));
+			
+			content = new byte[(int) length];
+			file.readFully(content);
+		}
+		finally
+		{
+			file.close();
+		}
+		
+		ByteBuffer header = ByteBuffer.wrap(content);
+		if (header.getInt(MappedRingBuffer.OFFSET_MAGIC) != MappedRingBuffer.MAGIC)
+			throw new IOException(String.format(
+					"File `%s' is not a ring buffer", path));
+		
+		int version = header.getInt(MappedRingBuffer.OFFSET_VERSION);
+		if (version != MappedRingBuffer.VERSION)
+			throw new IOException(String.format(
+					"Unsupported ring buffer version %d in file `%s'", version, path));
+		
+		int capacity = header.getInt(MappedRingBuffer.OFFSET_CAPACITY);
+		if (capacity <= 0 || capacity > content.length - MappedRingBuffer.HEADER_SIZE)
+			throw new IOException(String.format(
+					"Ring buffer in file `%s' is truncated", path));
+		
+		long writePosition = header.getLong(MappedRingBuffer.OFFSET_WRITE_POSITION);
+		long lowerBound = Math.max(0, writePosition - capacity);
+		
+		Circular data = new Circular(content, capacity);
+		byte[] frame = new byte[MappedRingBuffer.RECORD_OVERHEAD];
+		
+		// Walk backwards from the most recent record
+		ArrayList<Record> records = new ArrayList<Record>();
+		long expectedSequence = -1;
+		long pos = writePosition;
+		while (pos - lowerBound >= MappedRingBuffer.RECORD_OVERHEAD)
+		{
+			data.read(pos - 4, frame, 12, 4);
+			int length = MappedRingBuffer.getInt(frame, 12);
+			if (length < 0 || length > pos - lowerBound - MappedRingBuffer.RECORD_OVERHEAD)
+				break;
+			
+			long start = pos - length - MappedRingBuffer.RECORD_OVERHEAD;
+			data.read(start, frame, 0, 12);
+			if (MappedRingBuffer.getInt(frame, 0) != length)
+				break;
+			
+			long sequence = MappedRingBuffer.getLong(frame, 4);
+			if (expectedSequence != -1 && sequence != expectedSequence)
+				break;
+			
+			byte[] payload = new byte[length];
+			data.read(start + 12, payload, 0, length);
+			records.add(new Record(sequence, payload));
+			
+			expectedSequence = sequence - 1;
+			pos = start;
+		}
+		
+		Collections.reverse(records);
+		return records;
+	}
+	
+	/**
+	 * Print all intact records of the given file, interpreting their payload
+	 * as text in the given charset.
+	 */
+	public static void dump(File path, Charset charset, PrintStream out) throws IOException
+	{
+		for (Record r : read(path))
+			out.format("%8d: %s\n", r.getSequence(), new String(r.getData(), charset));
+	}
+	
+	// =========================================================================
+	
+	private static final class Circular
+	{
+		private final byte[] content;
+		
+		private final int capacity;
+		
+		public Circular(byte[] content, int capacity)
+		{
+			this.content = content;
+			this.capacity = capacity;
+		}
+		
+		public void read(long pos, byte[] dest, int offset, int length)
+		{
+			int index = (int) (pos % capacity);
+			int first = Math.min(length, capacity - index);
+			System.arraycopy(content, MappedRingBuffer.HEADER_SIZE + index, dest, offset, first);
+			System.arraycopy(content, MappedRingBuffer.HEADER_SIZE, dest, offset + first, length - first);
+		}
+	}
+}
@@ -0,0 +1,527 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Estimates the heap size of objects and object graphs.
+ * 
+ * The memory layout of the running JVM (reference size, object header size
+ * and object alignment) is detected once. If available, the actual field
+ * offsets are taken from the JVM, otherwise they are estimated following the
+ * layout rules of the HotSpot VM. The layout of a class is only computed once
+ * and then cached.
+ * 
+ * Instances of Class, ClassLoader and Thread as well as enum constants are
+ * considered shared and are neither counted nor traversed. References are
+ * read through sun.misc.Unsafe, which also works for fields of JDK classes in
+ * modules not opened to this library. Without Unsafe, references held in
+ * fields that cannot be made accessible are counted but not followed.
+ */
+public final class MemoryMeter
+{
+	private static final boolean IS_64_BIT;
+	
+	private static final boolean COMPRESSED_OOPS;
+	
+	private static final int REFERENCE_SIZE;
+	
+	private static final int OBJECT_HEADER_SIZE;
+	
+	private static final int OBJECT_ALIGNMENT;
+	
+	private static final Object UNSAFE;
+	
+	private static final Method UNSAFE_OBJECT_FIELD_OFFSET;
+	
+	private static final Method UNSAFE_ARRAY_BASE_OFFSET;
+	
+	private static final Method UNSAFE_ARRAY_INDEX_SCALE;
+	
+	/**
+	 * Unsafe.getObject(Object, long) bound to the Unsafe instance. A constant
+	 * method handle is inlined by the JIT compiler, unlike Method.invoke().
+	 */
+	private static final MethodHandle UNSAFE_GET_OBJECT;
+	
+	private static final ClassValue<ClassLayout> LAYOUTS =
+			new ClassValue<ClassLayout>()
+			{
+				@Override
+				protected ClassLayout computeValue(Class<?> type)
+				{
+					return computeLayout(type);
+				}
+			};
+	
+	static
+	{
+		String dataModel = System.getProperty("sun.arch.data.model");
+		if (dataModel != null)
+			IS_64_BIT = dataModel.equals("64");
+		else
+			IS_64_BIT = System.getProperty("os.arch", "").contains("64");
+		
+		String oops = getVmOption("UseCompressedOops");
+		if (oops != null)
+			COMPRESSED_OOPS = IS_64_BIT && Boolean.parseBoolean(oops);
+		else
+			COMPRESSED_OOPS = IS_64_BIT &&
+					Runtime.getRuntime().maxMemory() < (32L << 30);
+		
+		String classPointers = getVmOption("UseCompressedClassPointers");
+		boolean compressedClassPointers = (classPointers != null) ?
+				Boolean.parseBoolean(classPointers) :
+				COMPRESSED_OOPS;
+		
+		String alignment = getVmOption("ObjectAlignmentInBytes");
+		OBJECT_ALIGNMENT = (alignment != null) ?
+				Integer.parseInt(alignment) :
+				8;
+		
+		REFERENCE_SIZE = (IS_64_BIT && !COMPRESSED_OOPS) ? 8 : 4;
+		
+		if (!IS_64_BIT)
+			OBJECT_HEADER_SIZE = 8;
+		else
+			OBJECT_HEADER_SIZE = compressedClassPointers ? 12 : 16;
+		
+		Object unsafe = null;
+		Method objectFieldOffset = null;
+		Method arrayBaseOffset = null;
+		Method arrayIndexScale = null;
+		MethodHandle getObject = null;
+		try
+		{
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+			objectFieldOffset = unsafeClass.getMethod("objectFieldOffset", Field.class);
+			arrayBaseOffset = unsafeClass.getMethod("arrayBaseOffset", Class.class);
+			arrayIndexScale = unsafeClass.getMethod("arrayIndexScale", Class.class);
+			getObject = MethodHandles.lookup()
+			        .unreflect(unsafeClass.getMethod("getObject", Object.class, long.class))
+			        .bindTo(unsafe);
+		}
+		catch (Throwable e)
+		{
+			// Fall back to estimating the layout ourselves
+			unsafe = null;
+			getObject = null;
+		}
+		UNSAFE = unsafe;
+		UNSAFE_OBJECT_FIELD_OFFSET = objectFieldOffset;
+		UNSAFE_ARRAY_BASE_OFFSET = arrayBaseOffset;
+		UNSAFE_ARRAY_INDEX_SCALE = arrayIndexScale;
+		UNSAFE_GET_OBJECT = getObject;
+	}
+	
+	// =========================================================================
+	
+	public static boolean is64Bit()
+	{
+		return IS_64_BIT;
+	}
+	
+	public static boolean isCompressedOops()
+	{
+		return COMPRESSED_OOPS;
+	}
+	
+	/**
+	 * Returns the size of a reference in bytes.
+	 */
+	public static int getReferenceSize()
+	{
+		return REFERENCE_SIZE;
+	}
+	
+	/**
+	 * Returns the size of the header of a plain (non-array) object in bytes.
+	 */
+	public static int getObjectHeaderSize()
+	{
+		return OBJECT_HEADER_SIZE;
+	}
+	
+	/**
+	 * Returns the alignment of objects on the heap in bytes.
+	 */
+	public static int getObjectAlignment()
+	{
+		return OBJECT_ALIGNMENT;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns the size of the given object in bytes without the objects it
+	 * references. For arrays the size of the elements is included, however,
+	 * for arrays of references only the references themselves are counted.
+	 * 
+	 * @param obj
+	 *            The object to measure, may be null.
+	 * @return The estimated shallow size or 0 if the object is null.
+	 */
+	public static long sizeOf(Object obj)
+	{
+		if (obj == null)
+			return 0;
+		
+		ClassLayout layout = LAYOUTS.get(obj.getClass());
+		if (layout.isArray)
+			return layout.arraySize(Array.getLength(obj));
+		return layout.shallowSize;
+	}
+	
+	/**
+	 * Returns the size of the given object and all objects reachable from it.
+	 * Each object is only counted once, no matter how often it is referenced.
+	 * 
+	 * @param root
+	 *            The root of the object graph to measure, may be null.
+	 * @return The estimated retained size or 0 if the object is null or shared.
+	 */
+	public static long deepSizeOf(Object root)
+	{
+		if (root == null || isShared(root))
+			return 0;
+		
+		Set<Object> visited =
+				Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		
+		// Iterative traversal, deep graphs would overflow the call stack
+		ArrayStack<Object> pending = new ArrayStack<Object>();
+		
+		visited.add(root);
+		pending.push(root);
+		
+		long size = 0;
+		while (!pending.isEmpty())
+		{
+			Object obj = pending.pop();
+			
+			ClassLayout layout = LAYOUTS.get(obj.getClass());
+			if (layout.isArray)
+			{
+				int length = Array.getLength(obj);
+				size += layout.arraySize(length);
+				
+				if (layout.isReferenceArray)
+				{
+					Object[] array = (Object[]) obj;
+					for (int i = 0; i < length; ++i)
+						visit(array[i], visited, pending);
+				}
+			}
+			else
+			{
+				size += layout.shallowSize;
+				
+				if (layout.referenceOffsets != null)
+				{
+					for (long offset : layout.referenceOffsets)
+						visit(getObject(obj, offset), visited, pending);
+				}
+				else
+				{
+					try
+					{
+						for (Field f : layout.references)
+							visit(f.get(obj), visited, pending);
+					}
+					catch (IllegalAccessException e)
+					{
+						throw new FmtInternalLogicError(e);
+					}
+				}
+			}
+		}
+		
+		return size;
+	}
+	
+	// =========================================================================
+	
+	private static void visit(
+			Object obj,
+			Set<Object> visited,
+			ArrayStack<Object> pending)
+	{
+		if (obj != null && !isShared(obj) && visited.add(obj))
+			pending.push(obj);
+	}
+	
+	private static Object getObject(Object obj, long offset)
+	{
+		try
+		{
+			return (Object) UNSAFE_GET_OBJECT.invokeExact(obj, offset);
+		}
+		catch (Throwable e)
+		{
+			throw new FmtInternalLogicError(e);
+		}
+	}
+	
+	private static boolean isShared(Object obj)
+	{
+		return (obj instanceof Class)
+				|| (obj instanceof ClassLoader)
+				|| (obj instanceof Thread)
+				|| (obj instanceof Enum);
+	}
+	
+	private static String getVmOption(String name)
+	{
+		try
+		{
+			Class<?> beanClass =
+					Class.forName("com.sun.management.HotSpotDiagnosticMXBean");
+			
+			Object bean = ManagementFactory.newPlatformMXBeanProxy(
+					ManagementFactory.getPlatformMBeanServer(),
+					"com.sun.management:type=HotSpotDiagnostic",
+					beanClass);
+			
+			Object option = beanClass
+					.getMethod("getVMOption", String.class)
+					.invoke(bean, name);
+			
+			return (String) option.getClass()
+					.getMethod("getValue")
+					.invoke(option);
+		}
+		catch (Throwable e)
+		{
+			// Not a HotSpot VM or the option is unknown
+			return null;
+		}
+	}
+	
+	private static int sizeOfType(Class<?> type)
+	{
+		if (!type.isPrimitive())
+			return REFERENCE_SIZE;
+		else if (type == long.class || type == double.class)
+			return 8;
+		else if (type == int.class || type == float.class)
+			return 4;
+		else if (type == short.class || type == char.class)
+			return 2;
+		else
+			return 1;
+	}
+	
+	private static long align(long size, int alignment)
+	{
+		return (size + alignment - 1) / alignment * alignment;
+	}
+	
+	private static ClassLayout computeLayout(Class<?> clazz)
+	{
+		if (clazz.isArray())
+		{
+			Class<?> componentType = clazz.getComponentType();
+			
+			int base = -1;
+			int scale = -1;
+			if (UNSAFE != null)
+			{
+				try
+				{
+					base = (Integer) UNSAFE_ARRAY_BASE_OFFSET.invoke(UNSAFE, clazz);
+					scale = (Integer) UNSAFE_ARRAY_INDEX_SCALE.invoke(UNSAFE, clazz);
+				}
+				catch (Throwable e)
+				{
+					base = -1;
+				}
+			}
+			
+			if (base < 0)
+			{
+				scale = sizeOfType(componentType);
+				base = (int) align(
+						OBJECT_HEADER_SIZE + 4,
+						IS_64_BIT ? 8 : scale);
+			}
+			
+			return new ClassLayout(base, scale, !componentType.isPrimitive());
+		}
+		else
+		{
+			List<Field> fields = ReflectionUtils.getInstanceFields(clazz);
+			
+			long end = OBJECT_HEADER_SIZE;
+			long[] referenceOffsets = null;
+			if (UNSAFE != null)
+			{
+				try
+				{
+					int numReferences = 0;
+					long[] offsets = new long[fields.size()];
+					for (Field f : fields)
+					{
+						long offset = (Long) UNSAFE_OBJECT_FIELD_OFFSET.invoke(UNSAFE, f);
+						end = Math.max(end, offset + sizeOfType(f.getType()));
+						if (!f.getType().isPrimitive())
+							offsets[numReferences++] = offset;
+					}
+					referenceOffsets = Arrays.copyOf(offsets, numReferences);
+				}
+				catch (Throwable e)
+				{
+					end = estimateFieldsEnd(fields);
+					referenceOffsets = null;
+				}
+			}
+			else
+			{
+				end = estimateFieldsEnd(fields);
+			}
+			
+			if (referenceOffsets != null)
+				return new ClassLayout(align(end, OBJECT_ALIGNMENT), referenceOffsets);
+			
+			ArrayList<Field> references = new ArrayList<Field>();
+			for (Field f : fields)
+			{
+				if (f.getType().isPrimitive())
+					continue;
+				
+				try
+				{
+					f.setAccessible(true);
+					references.add(f);
+				}
+				catch (RuntimeException e)
+				{
+					// Field is not accessible (e.g. encapsulated JDK module),
+					// we count the reference but don't follow it.
+				}
+			}
+			
+			return new ClassLayout(
+					align(end, OBJECT_ALIGNMENT),
+					references.toArray(new Field[references.size()]));
+		}
+	}
+	
+	/**
+	 * Mimics HotSpot: the fields of superclasses come first, each class packs
+	 * its own fields ordered by size, largest first.
+	 */
+	private static long estimateFieldsEnd(List<Field> fields)
+	{
+		long offset = OBJECT_HEADER_SIZE;
+		
+		int i = 0;
+		while (i < fields.size())
+		{
+			Class<?> declaringClass = fields.get(i).getDeclaringClass();
+			
+			int[] sizes = new int[fields.size() - i];
+			int n = 0;
+			while (i < fields.size() && fields.get(i).getDeclaringClass() == declaringClass)
+				sizes[n++] = sizeOfType(fields.get(i++).getType());
+			
+			Arrays.sort(sizes, 0, n);
+			for (int j = n - 1; j >= 0; --j)
+				offset = align(offset, sizes[j]) + sizes[j];
+		}
+		
+		return offset;
+	}
+	
+	// =========================================================================
+	
+	private static final class ClassLayout
+	{
+		public final boolean isArray;
+		
+		public final boolean isReferenceArray;
+		
+		public final long shallowSize;
+		
+		public final Field[] references;
+		
+		/** Offsets of the reference fields if Unsafe is available. */
+		public final long[] referenceOffsets;
+		
+		public final int arrayBaseOffset;
+		
+		public final int arrayIndexScale;
+		
+		public ClassLayout(long shallowSize, Field[] references)
+		{
+			this.isArray = false;
+			this.isReferenceArray = false;
+			this.shallowSize = shallowSize;
+			this.references = references;
+			this.referenceOffsets = null;
+			this.arrayBaseOffset = 0;
+			this.arrayIndexScale = 0;
+		}
+		
+		public ClassLayout(long shallowSize, long[] referenceOffsets)
+		{
+			this.isArray = false;
+			this.isReferenceArray = false;
+			this.shallowSize = shallowSize;
+			this.references = null;
+			this.referenceOffsets = referenceOffsets;
+			this.arrayBaseOffset = 0;
+			this.arrayIndexScale = 0;
+		}
+		
+		public ClassLayout(
+				int arrayBaseOffset,
+				int arrayIndexScale,
+				boolean isReferenceArray)
+		{
+			this.isArray = true;
+			this.isReferenceArray = isReferenceArray;
+			this.shallowSize = 0;
+			this.references = null;
+			this.referenceOffsets = null;
+			this.arrayBaseOffset = arrayBaseOffset;
+			this.arrayIndexScale = arrayIndexScale;
+		}
+		
+		public long arraySize(int length)
+		{
+			return align(
+					arrayBaseOffset + (long) arrayIndexScale * length,
+					OBJECT_ALIGNMENT);
+		}
+	}
+}
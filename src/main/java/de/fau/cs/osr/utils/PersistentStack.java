@@ -0,0 +1,166 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable stack. Pushing or popping an element returns a new stack that
+ * shares all remaining elements with the original stack, so both operations
+ * take O(1) time and space.
+ * 
+ * Several speculative branches of a backtracking parser can therefore keep
+ * their own version of a stack alive at the same time without copying it.
+ * Instances are immutable and thus thread-safe if the elements are.
+ * 
+ * @see ArrayStack#mark()
+ */
+public final class PersistentStack<T>
+        implements
+            Iterable<T>
+{
+	private static final PersistentStack<Object> EMPTY =
+	        new PersistentStack<Object>(null, null, 0);
+	
+	private final T top;
+	
+	private final PersistentStack<T> below;
+	
+	private final int size;
+	
+	// =========================================================================
+	
+	private PersistentStack(T top, PersistentStack<T> below, int size)
+	{
+		this.top = top;
+		this.below = below;
+		this.size = size;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public static <T> PersistentStack<T> empty()
+	{
+		return (PersistentStack<T>) EMPTY;
+	}
+	
+	// =========================================================================
+	
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	public int size()
+	{
+		return size;
+	}
+	
+	public T peek()
+	{
+		if (isEmpty())
+			throw new EmptyStackException();
+		return top;
+	}
+	
+	/**
+	 * Returns a stack with the given element on top of this stack.
+	 */
+	public PersistentStack<T> push(T item)
+	{
+		return new PersistentStack<T>(item, this, size + 1);
+	}
+	
+	/**
+	 * Returns the stack below the top element.
+	 */
+	public PersistentStack<T> pop()
+	{
+		if (isEmpty())
+			throw new EmptyStackException();
+		return below;
+	}
+	
+	/**
+	 * Returns the stack below the top n elements.
+	 */
+	public PersistentStack<T> popN(int n)
+	{
+		if (n < 0)
+			throw new IllegalArgumentException();
+		if (n > size)
+			throw new EmptyStackException();
+		
+		PersistentStack<T> s = this;
+		while (n-- > 0)
+			s = s.below;
+		return s;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns an iterator from the top to the bottom of the stack.
+	 */
+	@Override
+	public Iterator<T> iterator()
+	{
+		return new Iterator<T>()
+		{
+			private PersistentStack<T> next = PersistentStack.this;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return !next.isEmpty();
+			}
+			
+			@Override
+			public T next()
+			{
+				if (!hasNext())
+					throw new NoSuchElementException();
+				T item = next.top;
+				next = next.below;
+				return item;
+			}
+			
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append('[');
+		for (T item : this)
+		{
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append(item);
+		}
+		sb.append(']');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,490 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import de.fau.cs.osr.utils.jfr.ScopeEvent;
+
+/**
+ * Measures the time spent in named, nested scopes.
+ * 
+ * <pre>
+ * try (Profiler.Scope s = profiler.enter("parse"))
+ * {
+ * 	...
+ * }
+ * </pre>
+ * 
+ * Each thread aggregates the number of calls and the total time of its
+ * scopes in its own tree of scopes. A scope's position in the tree is given
+ * by the names of the enclosing scopes. Recording takes no locks and only
+ * allocates when a thread enters a scope for the first time at a given
+ * position. getReport() merges the trees of all threads that have ever used
+ * the profiler. The trees of threads that have terminated are folded into a
+ * single shared tree, so that short-lived threads do not accumulate.
+ * 
+ * Optionally, the profiler emits a Flight Recorder ScopeEvent for each scope
+ * that is left, so that the scopes appear in JFR recordings. If the event is
+ * disabled or no recording is running, this only adds the cost of checking
+ * whether the event is enabled.
+ * 
+ * Scopes must be closed in the reverse order in which they were entered and
+ * by the thread that entered them.
+ */
+public class Profiler
+{
+	private final boolean emitJfrEvents;
+	
+	private volatile State state = new State();
+	
+	// =========================================================================
+	
+	public Profiler()
+	{
+		this(false);
+	}
+	
+	/**
+	 * @param emitJfrEvents
+	 *            If true, a ScopeEvent is emitted for each scope that is left.
+	 */
+	public Profiler(boolean emitJfrEvents)
+	{
+		this.emitJfrEvents = emitJfrEvents;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Enters the scope with the given name below the current scope of the
+	 * calling thread. The returned scope must be closed to leave it.
+	 */
+	public Scope enter(String name)
+	{
+		if (name == null)
+			throw new NullPointerException();
+		
+		ThreadTree tree = state.trees.get();
+		Node node = tree.current.child(name);
+		tree.current = node;
+		
+		if (emitJfrEvents && ScopeEventProbe.PROBE.isEnabled())
+		{
+			ScopeEvent event = new ScopeEvent();
+			event.begin();
+			node.event = event;
+		}
+		
+		node.watch.restart();
+		return node;
+	}
+	
+	/**
+	 * Discards all recorded measurements. Scopes that are open while the
+	 * profiler is reset are not reported.
+	 */
+	public void reset()
+	{
+		state = new State();
+	}
+	
+	/**
+	 * Merges the scope trees of all threads.
+	 * 
+	 * @return The top-level scopes.
+	 */
+	public Report getReport()
+	{
+		return new Report(state.merge());
+	}
+	
+	/**
+	 * Returns the number of threads whose trees are kept separately, i.e.
+	 * that have not been folded into the shared tree yet.
+	 */
+	int getThreadTreeCount()
+	{
+		return state.getThreadTreeCount();
+	}
+	
+	// =========================================================================
+	
+	public static interface Scope
+	        extends
+	            AutoCloseable
+	{
+		/**
+		 * Leaves the scope.
+		 */
+		@Override
+		public void close();
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * The merged measurements of a profiler.
+	 */
+	public static final class Report
+	{
+		private final List<Entry> scopes;
+		
+		private Report(List<Entry> scopes)
+		{
+			this.scopes = Collections.unmodifiableList(scopes);
+		}
+		
+		public List<Entry> getScopes()
+		{
+			return scopes;
+		}
+		
+		/**
+		 * Returns the scope at the given path of names or null.
+		 */
+		public Entry find(String... path)
+		{
+			List<Entry> level = scopes;
+			Entry found = null;
+			for (String name : path)
+			{
+				found = null;
+				for (Entry e : level)
+				{
+					if (e.name.equals(name))
+					{
+						found = e;
+						break;
+					}
+				}
+				if (found == null)
+					return null;
+				level = found.children;
+			}
+			return found;
+		}
+		
+		@Override
+		public String toString()
+		{
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format(
+			        "%-40s %12s %14s %14s%n", "Scope", "Calls", "Total [ms]", "Self [ms]"));
+			for (Entry e : scopes)
+				e.format(sb, 0);
+			return sb.toString();
+		}
+		
+		private static void merge(Map<String, Entry> into, Node[] nodes)
+		{
+			for (Node node : nodes)
+			{
+				Entry e = into.get(node.name);
+				if (e == null)
+					into.put(node.name, e = new Entry(node.name));
+				
+				e.count += node.count;
+				e.total += node.total;
+				
+				Map<String, Entry> children = new LinkedHashMap<String, Entry>();
+				for (Entry c : e.children)
+					children.put(c.name, c);
+				merge(children, node.children);
+				e.children = new ArrayList<Entry>(children.values());
+			}
+		}
+		
+		// =====================================================================
+		
+		public static final class Entry
+		{
+			private final String name;
+			
+			private long count;
+			
+			private long total;
+			
+			private List<Entry> children = Collections.emptyList();
+			
+			private Entry(String name)
+			{
+				this.name = name;
+			}
+			
+			public String getName()
+			{
+				return name;
+			}
+			
+			/**
+			 * Returns the number of times the scope was left.
+			 */
+			public long getCount()
+			{
+				return count;
+			}
+			
+			public long getTotalTime(TimeUnit unit)
+			{
+				return unit.convert(total, TimeUnit.NANOSECONDS);
+			}
+			
+			/**
+			 * Returns the total time minus the total time of the nested
+			 * scopes.
+			 */
+			public long getSelfTime(TimeUnit unit)
+			{
+				long self = total;
+				for (Entry c : children)
+					self -= c.total;
+				return unit.convert(Math.max(self, 0), TimeUnit.NANOSECONDS);
+			}
+			
+			public List<Entry> getChildren()
+			{
+				return Collections.unmodifiableList(children);
+			}
+			
+			private void format(StringBuilder sb, int depth)
+			{
+				char[] indent = new char[depth * 2];
+				Arrays.fill(indent, ' ');
+				sb.append(String.format(
+				        "%-40s %12d %14.3f %14.3f%n",
+				        new String(indent) + name,
+				        count,
+				        total / 1e6,
+				        getSelfTime(TimeUnit.NANOSECONDS) / 1e6));
+				for (Entry c : children)
+					c.format(sb, depth + 1);
+			}
+		}
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Only loaded if JFR events are emitted. Whether an event is enabled is
+	 * a property of its class, so a single instance can answer it without
+	 * allocating an event per scope.
+	 */
+	private static final class ScopeEventProbe
+	{
+		static final ScopeEvent PROBE = new ScopeEvent();
+	}
+	
+	private static final class State
+	{
+		/** The merged trees of terminated threads. */
+		private final Node retired = new Node(null, null, null);
+		
+		private final ArrayList<ThreadTree> live = new ArrayList<ThreadTree>();
+		
+		/** Number of live trees at which terminated threads are folded in. */
+		private int foldThreshold = 16;
+		
+		final ThreadLocal<ThreadTree> trees = new ThreadLocal<ThreadTree>()
+		{
+			@Override
+			protected ThreadTree initialValue()
+			{
+				ThreadTree tree = new ThreadTree(Thread.currentThread());
+				register(tree);
+				return tree;
+			}
+		};
+		
+		private synchronized void register(ThreadTree tree)
+		{
+			// Folding in is O(n), doubling the threshold keeps it amortized O(1)
+			if (live.size() >= foldThreshold)
+			{
+				foldTerminated();
+				foldThreshold = Math.max(16, live.size() * 2);
+			}
+			live.add(tree);
+		}
+		
+		/**
+		 * Merges the trees of all threads. Holds the lock while merging, so
+		 * that no tree is folded into the shared tree while it is read.
+		 */
+		synchronized List<Report.Entry> merge()
+		{
+			foldTerminated();
+			
+			Map<String, Report.Entry> merged = new LinkedHashMap<String, Report.Entry>();
+			Report.merge(merged, retired.children);
+			for (ThreadTree tree : live)
+				Report.merge(merged, tree.root.children);
+			return new ArrayList<Report.Entry>(merged.values());
+		}
+		
+		synchronized int getThreadTreeCount()
+		{
+			return live.size();
+		}
+		
+		private void foldTerminated()
+		{
+			for (Iterator<ThreadTree> i = live.iterator(); i.hasNext();)
+			{
+				ThreadTree tree = i.next();
+				if (!tree.isTerminated())
+					continue;
+				
+				retired.fold(tree.root);
+				i.remove();
+			}
+		}
+	}
+	
+	private static final class ThreadTree
+	{
+		final WeakReference<Thread> thread;
+		
+		final Node root = new Node(this, null, null);
+		
+		Node current = root;
+		
+		ThreadTree(Thread thread)
+		{
+			this.thread = new WeakReference<Thread>(thread);
+		}
+		
+		boolean isTerminated()
+		{
+			Thread t = thread.get();
+			return t == null || !t.isAlive();
+		}
+	}
+	
+	/**
+	 * A scope in the tree of one thread. Only the owning thread writes the
+	 * fields; the volatile fields are read when a report is created.
+	 */
+	private static final class Node
+	        implements
+	            Scope
+	{
+		private static final Node[] NO_CHILDREN = new Node[0];
+		
+		final ThreadTree tree;
+		
+		final Node parent;
+		
+		final String name;
+		
+		final StopWatch watch = new StopWatch(true);
+		
+		/** The Flight Recorder event of the open scope or null. */
+		ScopeEvent event;
+		
+		volatile long count;
+		
+		volatile long total;
+		
+		volatile Node[] children = NO_CHILDREN;
+		
+		Node(ThreadTree tree, Node parent, String name)
+		{
+			this.tree = tree;
+			this.parent = parent;
+			this.name = name;
+		}
+		
+		Node child(String name)
+		{
+			Node[] c = children;
+			for (Node n : c)
+			{
+				if (n.name == name)
+					return n;
+			}
+			for (Node n : c)
+			{
+				if (n.name.equals(name))
+					return n;
+			}
+			
+			Node n = new Node(tree, this, name);
+			Node[] grown = Arrays.copyOf(c, c.length + 1);
+			grown[c.length] = n;
+			children = grown;
+			return n;
+		}
+		
+		/**
+		 * Adds the measurements of the given tree to this tree.
+		 */
+		void fold(Node other)
+		{
+			count += other.count;
+			total += other.total;
+			for (Node c : other.children)
+				child(c.name).fold(c);
+		}
+		
+		@Override
+		public void close()
+		{
+			if (tree.current != this)
+				throw new IllegalStateException(
+				        "Scope `" + name + "' is not the innermost open scope");
+			
+			watch.stop();
+			total += watch.getElapsedTicks();
+			count++;
+			tree.current = parent;
+			
+			if (event != null)
+			{
+				commitEvent();
+				event = null;
+			}
+		}
+		
+		private void commitEvent()
+		{
+			event.end();
+			if (event.shouldCommit())
+			{
+				event.name = name;
+				event.path = getPath();
+				event.commit();
+			}
+		}
+		
+		String getPath()
+		{
+			if (parent.name == null)
+				return name;
+			return parent.getPath() + '/' + name;
+		}
+	}
+}
@@ -18,9 +18,27 @@
 package de.fau.cs.osr.utils;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 public class ReflectionUtils
 {
+	private static final ClassValue<List<Class<?>>> TYPE_HIERARCHIES =
+			new ClassValue<List<Class<?>>>()
+			{
+				@Override
+				protected List<Class<?>> computeValue(Class<?> type)
+				{
+					return computeTypeHierarchy(type);
+				}
+			};
+	
+	// =========================================================================
+	
 	/**
 	 * Class.forName() cannot instantiate Class objects for primitive data types
 	 * like `int'. This method considers these cases too.
@@ -142,6 +160,84 @@ public class ReflectionUtils
 		return new ArrayInfo(cClass, dim);
 	}
 	
+	/**
+	 * Collects the non-static fields declared by the given class and all its
+	 * superclasses. Fields of superclasses come first.
+	 * 
+	 * @param clazz
+	 *            The class whose instance fields are requested.
+	 * @return A list of all instance fields, including private and inherited
+	 *         ones. The fields have not been made accessible.
+	 */
+	public static List<Field> getInstanceFields(Class<?> clazz)
+	{
+		ArrayList<Class<?>> hierarchy = new ArrayList<Class<?>>();
+		for (Class<?> c = clazz; c != null; c = c.getSuperclass())
+			hierarchy.add(c);
+		
+		ArrayList<Field> fields = new ArrayList<Field>();
+		for (int i = hierarchy.size() - 1; i >= 0; --i)
+		{
+			for (Field f : hierarchy.get(i).getDeclaredFields())
+			{
+				if (!Modifier.isStatic(f.getModifiers()))
+					fields.add(f);
+			}
+		}
+		return fields;
+	}
+	
+	/**
+	 * Returns the given class and all its superclasses and implemented
+	 * interfaces (including the interfaces' superinterfaces), ordered from
+	 * most specific to least specific.
+	 * 
+	 * The order is a breadth-first traversal where the superclass of a type
+	 * is visited before the interfaces it implements and interfaces are visited
+	 * in declaration order. Each type appears only once and Object always comes
+	 * last. The result is computed once per class and then cached.
+	 * 
+	 * @param clazz
+	 *            The class whose type hierarchy is requested.
+	 * @return An unmodifiable list starting with the given class itself.
+	 */
+	public static List<Class<?>> getTypeHierarchy(Class<?> clazz)
+	{
+		return TYPE_HIERARCHIES.get(clazz);
+	}
+	
+	private static List<Class<?>> computeTypeHierarchy(Class<?> clazz)
+	{
+		if (clazz.isPrimitive())
+			return Collections.<Class<?>> singletonList(clazz);
+		
+		LinkedHashSet<Class<?>> hierarchy = new LinkedHashSet<Class<?>>();
+		hierarchy.add(clazz);
+		
+		ArrayList<Class<?>> queue = new ArrayList<Class<?>>();
+		queue.add(clazz);
+		for (int i = 0; i < queue.size(); ++i)
+		{
+			Class<?> c = queue.get(i);
+			
+			Class<?> superclass = c.getSuperclass();
+			if (superclass != null && superclass != Object.class && hierarchy.add(superclass))
+				queue.add(superclass);
+			
+			for (Class<?> iface : c.getInterfaces())
+			{
+				if (hierarchy.add(iface))
+					queue.add(iface);
+			}
+		}
+		
+		hierarchy.add(Object.class);
+		
+		return Collections.unmodifiableList(new ArrayList<Class<?>>(hierarchy));
+	}
+	
+	// =========================================================================
+	
 	public static final class ArrayInfo
 	{
 		public final Class<?> elementClass;
@@ -0,0 +1,328 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A companion to StopWatch that measures the resources the current thread
+ * consumes between start() and stop(): wall time, CPU time, user time and
+ * allocated heap memory.
+ * 
+ * CPU and user time are read from the platform's ThreadMXBean, allocated
+ * bytes from the com.sun.management extension of it (available on HotSpot
+ * and OpenJ9). If the JVM does not support a measurement or it is disabled,
+ * the corresponding getter returns -1; wall time is always available.
+ * Comparing wall time and CPU time tells whether the measured code was
+ * CPU-bound or waiting (e.g. blocked or paused by the garbage collector).
+ * 
+ * Both measurements are enabled by default on HotSpot. Loading this class
+ * does not change any JVM settings; enable() switches the measurements on
+ * if they have been disabled, which affects the whole JVM.
+ * 
+ * A meter must be started and stopped by the same thread. This class is not
+ * thread-safe.
+ */
+public class ResourceMeter
+{
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	
+	private static final boolean CPU_TIME_SUPPORTED;
+	
+	private static final AllocationCounter ALLOCATION_COUNTER;
+	
+	static
+	{
+		boolean cpuTime = false;
+		try
+		{
+			cpuTime = THREADS.isCurrentThreadCpuTimeSupported();
+		}
+		catch (UnsupportedOperationException e)
+		{
+		}
+		catch (SecurityException e)
+		{
+		}
+		CPU_TIME_SUPPORTED = cpuTime;
+		
+		AllocationCounter allocationCounter = null;
+		try
+		{
+			allocationCounter = SunAllocationCounter.create();
+		}
+		catch (LinkageError e)
+		{
+			// Not a JVM with the com.sun.management extensions
+		}
+		ALLOCATION_COUNTER = allocationCounter;
+	}
+	
+	// =========================================================================
+	
+	private final StopWatch watch = new StopWatch(true);
+	
+	private long threadId = -1;
+	
+	private long cpuTime = -1;
+	
+	private long userTime = -1;
+	
+	private long allocatedBytes = -1;
+	
+	// =========================================================================
+	
+	/**
+	 * Returns true if the JVM supports measuring CPU time and the
+	 * measurement is enabled.
+	 */
+	public static boolean isCpuTimeSupported()
+	{
+		return CPU_TIME_SUPPORTED && THREADS.isThreadCpuTimeEnabled();
+	}
+	
+	/**
+	 * Returns true if the JVM supports measuring allocated bytes and the
+	 * measurement is enabled.
+	 */
+	public static boolean isAllocatedBytesSupported()
+	{
+		return ALLOCATION_COUNTER != null && ALLOCATION_COUNTER.isEnabled();
+	}
+	
+	/**
+	 * Enables the measurement of CPU time and allocated bytes if the JVM
+	 * supports them. This is a JVM-wide setting and also affects other users
+	 * of the ThreadMXBean.
+	 * 
+	 * @throws SecurityException
+	 *             If a security manager denies the change.
+	 */
+	public static void enable()
+	{
+		if (CPU_TIME_SUPPORTED && !THREADS.isThreadCpuTimeEnabled())
+			THREADS.setThreadCpuTimeEnabled(true);
+		if (ALLOCATION_COUNTER != null)
+			ALLOCATION_COUNTER.enable();
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Starts a new measurement on the current thread. The results of a
+	 * previous measurement are discarded.
+	 */
+	public ResourceMeter start()
+	{
+		threadId = Thread.currentThread().getId();
+		// Both return -1 if the measurement is disabled
+		cpuTime = CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : -1;
+		userTime = CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadUserTime() : -1;
+		allocatedBytes = (ALLOCATION_COUNTER != null) ?
+		        ALLOCATION_COUNTER.getAllocatedBytes(threadId) :
+		        -1;
+		watch.restart();
+		return this;
+	}
+	
+	/**
+	 * Ends the measurement. Must be called by the thread that started it.
+	 */
+	public ResourceMeter stop()
+	{
+		if (!watch.isRunning())
+			return this;
+		
+		if (Thread.currentThread().getId() != threadId)
+			throw new IllegalStateException(
+			        "Resource meter must be stopped by the thread that started it");
+		
+		watch.stop();
+		
+		if (cpuTime != -1)
+			cpuTime = delta(THREADS.getCurrentThreadCpuTime(), cpuTime);
+		if (userTime != -1)
+			userTime = delta(THREADS.getCurrentThreadUserTime(), userTime);
+		if (allocatedBytes != -1)
+			allocatedBytes = delta(ALLOCATION_COUNTER.getAllocatedBytes(threadId), allocatedBytes);
+		return this;
+	}
+	
+	public ResourceMeter reset()
+	{
+		watch.reset();
+		threadId = -1;
+		cpuTime = -1;
+		userTime = -1;
+		allocatedBytes = -1;
+		return this;
+	}
+	
+	public boolean isRunning()
+	{
+		return watch.isRunning();
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns the wall time between start() and stop().
+	 */
+	public long getElapsedTime(TimeUnit unit)
+	{
+		return watch.getElapsedTime(unit);
+	}
+	
+	/**
+	 * Returns the CPU time the thread spent between start() and stop() or -1
+	 * if CPU time is not supported or the meter has not been stopped.
+	 */
+	public long getCpuTime(TimeUnit unit)
+	{
+		return convert(cpuTime, unit);
+	}
+	
+	/**
+	 * Returns the CPU time the thread spent in user mode between start() and
+	 * stop() or -1 if CPU time is not supported or the meter has not been
+	 * stopped.
+	 */
+	public long getUserTime(TimeUnit unit)
+	{
+		return convert(userTime, unit);
+	}
+	
+	/**
+	 * Returns the CPU time the thread spent in system mode between start()
+	 * and stop() or -1 if CPU time is not supported or the meter has not been
+	 * stopped.
+	 */
+	public long getSystemTime(TimeUnit unit)
+	{
+		if (cpuTime == -1 || userTime == -1 || watch.isRunning())
+			return -1;
+		return unit.convert(Math.max(0, cpuTime - userTime), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Returns the number of bytes the thread allocated on the heap between
+	 * start() and stop() or -1 if this measurement is not supported or the
+	 * meter has not been stopped.
+	 */
+	public long getAllocatedBytes()
+	{
+		return watch.isRunning() ? -1 : allocatedBytes;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format(
+		        "wall=%.3fms, cpu=%.3fms, user=%.3fms, allocated=%s",
+		        getElapsedTime(TimeUnit.NANOSECONDS) / 1e6,
+		        getCpuTime(TimeUnit.NANOSECONDS) / 1e6,
+		        getUserTime(TimeUnit.NANOSECONDS) / 1e6,
+		        (getAllocatedBytes() == -1) ? "n/a" : getAllocatedBytes() + "B");
+	}
+	
+	// =========================================================================
+	
+	private static long delta(long now, long then)
+	{
+		// A measurement can fail (return -1) at any time, e.g. if disabled
+		return (now == -1) ? -1 : now - then;
+	}
+	
+	private long convert(long nanos, TimeUnit unit)
+	{
+		if (nanos == -1 || watch.isRunning())
+			return -1;
+		return unit.convert(nanos, TimeUnit.NANOSECONDS);
+	}
+	
+	// =========================================================================
+	
+	private static interface AllocationCounter
+	{
+		public boolean isEnabled();
+		
+		public void enable();
+		
+		public long getAllocatedBytes(long threadId);
+	}
+	
+	/**
+	 * Only loaded if the com.sun.management extension of ThreadMXBean is
+	 * available.
+	 */
+	private static final class SunAllocationCounter
+	        implements
+	            AllocationCounter
+	{
+		private final com.sun.management.ThreadMXBean threads;
+		
+		private SunAllocationCounter(com.sun.management.ThreadMXBean threads)
+		{
+			this.threads = threads;
+		}
+		
+		static AllocationCounter create()
+		{
+			if (!(THREADS instanceof com.sun.management.ThreadMXBean))
+				return null;
+			
+			com.sun.management.ThreadMXBean threads =
+			        (com.sun.management.ThreadMXBean) THREADS;
+			try
+			{
+				if (!threads.isThreadAllocatedMemorySupported())
+					return null;
+			}
+			catch (UnsupportedOperationException e)
+			{
+				return null;
+			}
+			catch (SecurityException e)
+			{
+				return null;
+			}
+			return new SunAllocationCounter(threads);
+		}
+		
+		@Override
+		public boolean isEnabled()
+		{
+			return threads.isThreadAllocatedMemoryEnabled();
+		}
+		
+		@Override
+		public void enable()
+		{
+			if (!threads.isThreadAllocatedMemoryEnabled())
+				threads.setThreadAllocatedMemoryEnabled(true);
+		}
+		
+		@Override
+		public long getAllocatedBytes(long threadId)
+		{
+			return threads.getThreadAllocatedBytes(threadId);
+		}
+	}
+}
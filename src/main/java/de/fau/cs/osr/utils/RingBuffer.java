@@ -17,73 +17,768 @@
 
 package de.fau.cs.osr.utils;
 
+import java.lang.reflect.Array;
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
 
+/**
+ * A buffer of fixed capacity that keeps the most recently added elements. If
+ * the buffer is full, adding an element overwrites the oldest element.
+ * 
+ * Elements are indexed from the oldest (index 0) to the newest element. If the
+ * buffer is created with a power-of-two capacity, indices are mapped to slots
+ * by bit masking. Otherwise a conditional subtraction is used. No division is
+ * performed in either case.
+ * 
+ * Iterators are fail-fast. This class is not thread-safe.
+ */
 public class RingBuffer<T>
         implements
             Iterable<T>
 {
 	private final Object[] buffer;
 	
+	/** Capacity - 1 if the capacity is a power of two, -1 otherwise. */
+	private final int mask;
+	
 	private int fill = 0;
 	
 	private int start = 0;
 	
+	private int modCount = 0;
+	
+	// =========================================================================
+	
 	public RingBuffer(int capacity)
 	{
+		this(capacity, false);
+	}
+	
+	/**
+	 * @param capacity
+	 *            The maximum number of elements kept in the buffer.
+	 * @param roundToPowerOfTwo
+	 *            If true, the capacity is rounded up to the next power of two
+	 *            so that indices can be computed by bit masking.
+	 */
+	public RingBuffer(int capacity, boolean roundToPowerOfTwo)
+	{
+		if (capacity < 1)
+			throw new FmtIllegalArgumentException(
+			        "Capacity must be positive: %d", capacity);
+		
+		if (roundToPowerOfTwo)
+		{
+			if (capacity > (1 << 30))
+				throw new FmtIllegalArgumentException(
+				        "Capacity too large: %d", capacity);
+			capacity = nextPowerOfTwo(capacity);
+		}
+		
 		this.buffer = new Object[capacity];
+		this.mask = ((capacity & (capacity - 1)) == 0) ? capacity - 1 : -1;
 	}
 	
+	// =========================================================================
+	
+	public int size()
+	{
+		return fill;
+	}
+	
+	public int getCapacity()
+	{
+		return buffer.length;
+	}
+	
+	public boolean isEmpty()
+	{
+		return fill == 0;
+	}
+	
+	public boolean isFull()
+	{
+		return fill == buffer.length;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Appends an element, overwriting the oldest element if the buffer is
+	 * full.
+	 */
 	public void add(T x)
 	{
 		if (fill == buffer.length)
 		{
-			start = (start + 1) % buffer.length;
-			
-			buffer[(start + fill) % buffer.length] = x;
+			buffer[start] = x;
+			start = wrap(start + 1);
 		}
 		else
 		{
-			buffer[(start + fill) % buffer.length] = x;
-			
+			buffer[wrap(start + fill)] = x;
 			++fill;
 		}
+		++modCount;
 	}
 	
-	@Override
-	public Iterator<T> iterator()
+	/**
+	 * Appends all elements of the given collection in iteration order. If
+	 * there are more elements than the buffer can hold, only the last elements
+	 * are retained.
+	 */
+	@SuppressWarnings("unchecked")
+	public void addAll(Collection<? extends T> c)
 	{
-		return new Iterator<T>()
+		T[] src = (T[]) c.toArray();
+		addAll(src, 0, src.length);
+	}
+	
+	/**
+	 * Appends the elements src[offset] to src[offset + length - 1]. If there
+	 * are more elements than the buffer can hold, only the last elements are
+	 * retained.
+	 */
+	public void addAll(T[] src, int offset, int length)
+	{
+		if (offset < 0 || length < 0 || offset + length > src.length)
+			throw new IndexOutOfBoundsException();
+		
+		int capacity = buffer.length;
+		if (length >= capacity)
 		{
-			private int i = 0;
+			System.arraycopy(src, offset + length - capacity, buffer, 0, capacity);
+			start = 0;
+			fill = capacity;
+		}
+		else if (length > 0)
+		{
+			// Copy into the slots following the newest element
+			int end = wrap(start + fill);
+			int first = Math.min(length, capacity - end);
+			System.arraycopy(src, offset, buffer, end, first);
+			System.arraycopy(src, offset + first, buffer, 0, length - first);
 			
-			@Override
-			public boolean hasNext()
+			int overflow = fill + length - capacity;
+			if (overflow > 0)
 			{
-				return i < fill;
+				start = wrap(start + overflow);
+				fill = capacity;
 			}
-			
-			@SuppressWarnings("unchecked")
-			@Override
-			public T next()
+			else
 			{
-				if (!hasNext())
-					throw new NoSuchElementException();
-				
-				return (T) buffer[(start + i++) % buffer.length];
+				fill += length;
 			}
+		}
+		++modCount;
+	}
+	
+	/**
+	 * Prepends an element if the buffer is not full.
+	 * 
+	 * @return False if the buffer is full and the element was not added.
+	 */
+	public boolean offerFirst(T x)
+	{
+		if (fill == buffer.length)
+			return false;
+		
+		start = wrap(start + buffer.length - 1);
+		buffer[start] = x;
+		++fill;
+		++modCount;
+		return true;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns the element at the given index. Index 0 denotes the oldest
+	 * element, index size() - 1 the newest.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int index)
+	{
+		if (index < 0 || index >= fill)
+			throw new IndexOutOfBoundsException(
+			        "Index: " + index + ", Size: " + fill);
+		return (T) buffer[wrap(start + index)];
+	}
+	
+	/**
+	 * Returns the oldest element or null if the buffer is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public T peekFirst()
+	{
+		return (fill == 0) ? null : (T) buffer[start];
+	}
+	
+	/**
+	 * Returns the newest element or null if the buffer is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public T peekLast()
+	{
+		return (fill == 0) ? null : (T) buffer[wrap(start + fill - 1)];
+	}
+	
+	/**
+	 * Removes and returns the oldest element.
+	 * 
+	 * @throws NoSuchElementException
+	 *             If the buffer is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public T removeFirst()
+	{
+		if (fill == 0)
+			throw new NoSuchElementException();
+		
+		T x = (T) buffer[start];
+		buffer[start] = null;
+		start = wrap(start + 1);
+		--fill;
+		++modCount;
+		return x;
+	}
+	
+	/**
+	 * Removes and returns the newest element.
+	 * 
+	 * @throws NoSuchElementException
+	 *             If the buffer is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public T removeLast()
+	{
+		if (fill == 0)
+			throw new NoSuchElementException();
+		
+		int i = wrap(start + fill - 1);
+		T x = (T) buffer[i];
+		buffer[i] = null;
+		--fill;
+		++modCount;
+		return x;
+	}
+	
+	public void clear()
+	{
+		if (fill > 0)
+		{
+			int first = Math.min(fill, buffer.length - start);
+			Arrays.fill(buffer, start, start + first, null);
+			Arrays.fill(buffer, 0, fill - first, null);
+		}
+		start = 0;
+		fill = 0;
+		++modCount;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns the elements from oldest to newest.
+	 */
+	public Object[] toArray()
+	{
+		Object[] dest = new Object[fill];
+		copyTo(dest, 0);
+		return dest;
+	}
+	
+	/**
+	 * Returns the elements from oldest to newest. If the given array is large
+	 * enough it is used, otherwise a new array of the same runtime type is
+	 * allocated.
+	 */
+	@SuppressWarnings("unchecked")
+	public <E> E[] toArray(E[] dest)
+	{
+		if (dest.length < fill)
+			dest = (E[]) Array.newInstance(
+			        dest.getClass().getComponentType(), fill);
+		
+		copyTo(dest, 0);
+		if (dest.length > fill)
+			dest[fill] = null;
+		return dest;
+	}
+	
+	/**
+	 * Moves all elements into the given array, starting at index destPos, and
+	 * clears the buffer.
+	 * 
+	 * @return The number of elements moved.
+	 */
+	public int drainTo(Object[] dest, int destPos)
+	{
+		if (destPos < 0 || destPos + fill > dest.length)
+			throw new IndexOutOfBoundsException();
+		
+		int n = fill;
+		copyTo(dest, destPos);
+		clear();
+		return n;
+	}
+	
+	/**
+	 * Moves all elements into the given collection and clears the buffer.
+	 * 
+	 * @return The number of elements moved.
+	 */
+	@SuppressWarnings("unchecked")
+	public int drainTo(Collection<? super T> dest)
+	{
+		int n = fill;
+		dest.addAll((List<T>) Arrays.asList(toArray()));
+		clear();
+		return n;
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public Iterator<T> iterator()
+	{
+		return new Itr(false);
+	}
+	
+	/**
+	 * Returns an iterator from the newest to the oldest element.
+	 */
+	public Iterator<T> descendingIterator()
+	{
+		return new Itr(true);
+	}
+	
+	/**
+	 * Returns a read-only, random access view of this buffer. Index 0 denotes
+	 * the oldest element.
+	 */
+	public List<T> asList()
+	{
+		return new ListView();
+	}
+	
+	/**
+	 * Returns a view of this buffer as a capacity-restricted deque. Elements
+	 * added at the tail overwrite the oldest element if the buffer is full.
+	 * Elements cannot be added at the head of a full buffer.
+	 */
+	public Deque<T> asDeque()
+	{
+		return new DequeView();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return Arrays.toString(toArray());
+	}
+	
+	// =========================================================================
+	
+	private int wrap(int i)
+	{
+		if (mask != -1)
+			return i & mask;
+		return (i >= buffer.length) ? i - buffer.length : i;
+	}
+	
+	/**
+	 * Copies the elements in at most two contiguous segments.
+	 */
+	private void copyTo(Object[] dest, int destPos)
+	{
+		int first = Math.min(fill, buffer.length - start);
+		System.arraycopy(buffer, start, dest, destPos, first);
+		System.arraycopy(buffer, 0, dest, destPos + first, fill - first);
+	}
+	
+	/**
+	 * Removes the element at the given index by moving the newer elements one
+	 * slot towards the oldest element.
+	 */
+	private void removeAt(int index)
+	{
+		for (int i = index; i < fill - 1; ++i)
+			buffer[wrap(start + i)] = buffer[wrap(start + i + 1)];
+		buffer[wrap(start + fill - 1)] = null;
+		--fill;
+		++modCount;
+	}
+	
+	private static int nextPowerOfTwo(int x)
+	{
+		return (x == 1) ? 1 : Integer.highestOneBit(x - 1) << 1;
+	}
+	
+	// =========================================================================
+	
+	private final class Itr
+	        implements
+	            Iterator<T>
+	{
+		private final boolean descending;
+		
+		private final int expectedModCount = modCount;
+		
+		private int i = 0;
+		
+		public Itr(boolean descending)
+		{
+			this.descending = descending;
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			return i < fill;
+		}
+		
+		@Override
+		public T next()
+		{
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			
+			if (!hasNext())
+				throw new NoSuchElementException();
+			
+			int index = i++;
+			return get(descending ? fill - 1 - index : index);
+		}
+		
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+	
+	private final class ListView
+	        extends
+	            AbstractList<T>
+	        implements
+	            RandomAccess
+	{
+		@Override
+		public T get(int index)
+		{
+			return RingBuffer.this.get(index);
+		}
+		
+		@Override
+		public int size()
+		{
+			return fill;
+		}
+		
+		@Override
+		public Iterator<T> iterator()
+		{
+			return RingBuffer.this.iterator();
+		}
+		
+		/**
+		 * The list iterators of AbstractList check AbstractList.modCount,
+		 * which the buffer does not update, so they are not fail-fast.
+		 */
+		@Override
+		public ListIterator<T> listIterator(final int index)
+		{
+			if (index < 0 || index > fill)
+				throw new IndexOutOfBoundsException(
+				        "Index: " + index + ", Size: " + fill);
 			
-			@Override
-			public void remove()
+			return new ListIterator<T>()
 			{
-				throw new UnsupportedOperationException();
-			}
-		};
+				private final int expectedModCount = RingBuffer.this.modCount;
+				
+				private int cursor = index;
+				
+				@Override
+				public boolean hasNext()
+				{
+					return cursor < fill;
+				}
+				
+				@Override
+				public T next()
+				{
+					checkForComodification();
+					if (!hasNext())
+						throw new NoSuchElementException();
+					return RingBuffer.this.get(cursor++);
+				}
+				
+				@Override
+				public boolean hasPrevious()
+				{
+					return cursor > 0;
+				}
+				
+				@Override
+				public T previous()
+				{
+					checkForComodification();
+					if (!hasPrevious())
+						throw new NoSuchElementException();
+					return RingBuffer.this.get(--cursor);
+				}
+				
+				@Override
+				public int nextIndex()
+				{
+					return cursor;
+				}
+				
+				@Override
+				public int previousIndex()
+				{
+					return cursor - 1;
+				}
+				
+				@Override
+				public void remove()
+				{
+					throw new UnsupportedOperationException();
+				}
+				
+				@Override
+				public void set(T e)
+				{
+					throw new UnsupportedOperationException();
+				}
+				
+				@Override
+				public void add(T e)
+				{
+					throw new UnsupportedOperationException();
+				}
+				
+				private void checkForComodification()
+				{
+					if (RingBuffer.this.modCount != expectedModCount)
+						throw new ConcurrentModificationException();
+				}
+			};
+		}
+		
+		@Override
+		public Object[] toArray()
+		{
+			return RingBuffer.this.toArray();
+		}
 	}
 	
-	public int size()
+	private final class DequeView
+	        extends
+	            AbstractCollection<T>
+	        implements
+	            Deque<T>
 	{
-		return fill;
+		@Override
+		public int size()
+		{
+			return fill;
+		}
+		
+		@Override
+		public Iterator<T> iterator()
+		{
+			return RingBuffer.this.iterator();
+		}
+		
+		@Override
+		public Iterator<T> descendingIterator()
+		{
+			return RingBuffer.this.descendingIterator();
+		}
+		
+		@Override
+		public Object[] toArray()
+		{
+			return RingBuffer.this.toArray();
+		}
+		
+		@Override
+		public void clear()
+		{
+			RingBuffer.this.clear();
+		}
+		
+		@Override
+		public boolean add(T e)
+		{
+			RingBuffer.this.add(e);
+			return true;
+		}
+		
+		@Override
+		public void addFirst(T e)
+		{
+			if (!RingBuffer.this.offerFirst(e))
+				throw new IllegalStateException("Ring buffer is full");
+		}
+		
+		@Override
+		public void addLast(T e)
+		{
+			RingBuffer.this.add(e);
+		}
+		
+		@Override
+		public boolean offerFirst(T e)
+		{
+			return RingBuffer.this.offerFirst(e);
+		}
+		
+		@Override
+		public boolean offerLast(T e)
+		{
+			RingBuffer.this.add(e);
+			return true;
+		}
+		
+		@Override
+		public T removeFirst()
+		{
+			return RingBuffer.this.removeFirst();
+		}
+		
+		@Override
+		public T removeLast()
+		{
+			return RingBuffer.this.removeLast();
+		}
+		
+		@Override
+		public T pollFirst()
+		{
+			return (fill == 0) ? null : RingBuffer.this.removeFirst();
+		}
+		
+		@Override
+		public T pollLast()
+		{
+			return (fill == 0) ? null : RingBuffer.this.removeLast();
+		}
+		
+		@Override
+		public T getFirst()
+		{
+			if (fill == 0)
+				throw new NoSuchElementException();
+			return RingBuffer.this.peekFirst();
+		}
+		
+		@Override
+		public T getLast()
+		{
+			if (fill == 0)
+				throw new NoSuchElementException();
+			return RingBuffer.this.peekLast();
+		}
+		
+		@Override
+		public T peekFirst()
+		{
+			return RingBuffer.this.peekFirst();
+		}
+		
+		@Override
+		public T peekLast()
+		{
+			return RingBuffer.this.peekLast();
+		}
+		
+		@Override
+		public boolean removeFirstOccurrence(Object o)
+		{
+			for (int i = 0; i < fill; ++i)
+			{
+				if (Objects.equals(o, get(i)))
+				{
+					removeAt(i);
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		public boolean removeLastOccurrence(Object o)
+		{
+			for (int i = fill - 1; i >= 0; --i)
+			{
+				if (Objects.equals(o, get(i)))
+				{
+					removeAt(i);
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		@Override
+		public boolean remove(Object o)
+		{
+			return removeFirstOccurrence(o);
+		}
+		
+		@Override
+		public boolean offer(T e)
+		{
+			return offerLast(e);
+		}
+		
+		@Override
+		public T remove()
+		{
+			return removeFirst();
+		}
+		
+		@Override
+		public T poll()
+		{
+			return pollFirst();
+		}
+		
+		@Override
+		public T element()
+		{
+			return getFirst();
+		}
+		
+		@Override
+		public T peek()
+		{
+			return peekFirst();
+		}
+		
+		@Override
+		public void push(T e)
+		{
+			addFirst(e);
+		}
+		
+		@Override
+		public T pop()
+		{
+			return removeFirst();
+		}
 	}
 }
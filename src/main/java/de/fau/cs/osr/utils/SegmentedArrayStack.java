@@ -0,0 +1,335 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.EmptyStackException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A stack that stores its elements in fixed-size segments. The segments are
+ * referenced from a small index array.
+ * 
+ * Unlike ArrayStack, this stack never copies its elements when it grows.
+ * push() therefore takes O(1) time in the worst case (apart from the rare
+ * growth of the index array, which is smaller than the stack by the segment
+ * size), and no single large array is ever allocated. One empty segment above
+ * the top of the stack is kept to avoid allocating and releasing a segment
+ * repeatedly when the stack oscillates around a segment boundary.
+ * 
+ * The public API is the same as that of ArrayStack. Elements are indexed from
+ * the bottom (index 0) to the top of the stack. Iterators traverse the stack
+ * in this order and are fail-fast. This class is not thread-safe.
+ * 
+ * @see ArrayStack
+ */
+public class SegmentedArrayStack<T>
+        implements
+            Iterable<T>
+{
+	public static final int DEFAULT_SEGMENT_SIZE = 1024;
+	
+	private final int shift;
+	
+	private final int mask;
+	
+	private Object[][] segments = new Object[4][];
+	
+	/** Number of allocated segments. These are always segments[0..allocated). */
+	private int allocated = 0;
+	
+	private int size = 0;
+	
+	private int modCount = 0;
+	
+	// =========================================================================
+	
+	public SegmentedArrayStack()
+	{
+		this(DEFAULT_SEGMENT_SIZE);
+	}
+	
+	/**
+	 * @param segmentSize
+	 *            The number of elements per segment. Rounded up to the next
+	 *            power of two.
+	 */
+	public SegmentedArrayStack(int segmentSize)
+	{
+		if (segmentSize < 1 || segmentSize > (1 << 30))
+			throw new FmtIllegalArgumentException(
+			        "Segment size must be in [1, 2^30]: %d", segmentSize);
+		
+		int s = (segmentSize == 1) ? 1 : Integer.highestOneBit(segmentSize - 1) << 1;
+		this.shift = Integer.numberOfTrailingZeros(s);
+		this.mask = s - 1;
+	}
+	
+	// =========================================================================
+	
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	public int size()
+	{
+		return size;
+	}
+	
+	public int getCapacity()
+	{
+		return allocated << shift;
+	}
+	
+	public int getSegmentSize()
+	{
+		return mask + 1;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public T peek()
+	{
+		if (isEmpty())
+			throw new EmptyStackException();
+		return (T) element(size - 1);
+	}
+	
+	/**
+	 * Returns the element the given number of positions below the top of the
+	 * stack. peek(0) is equivalent to peek().
+	 */
+	@SuppressWarnings("unchecked")
+	public T peek(int depth)
+	{
+		if (depth < 0 || depth >= size)
+			throw new EmptyStackException();
+		return (T) element(size - 1 - depth);
+	}
+	
+	/**
+	 * Returns the element at the given index. Index 0 denotes the bottom of
+	 * the stack.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException(
+			        "Index: " + index + ", Size: " + size);
+		return (T) element(index);
+	}
+	
+	// =========================================================================
+	
+	public T pop()
+	{
+		T top = peek();
+		--size;
+		segments[size >>> shift][size & mask] = null;
+		++modCount;
+		releaseSegments(1);
+		return top;
+	}
+	
+	/**
+	 * Removes the top n elements.
+	 */
+	public void popN(int n)
+	{
+		if (n < 0)
+			throw new IllegalArgumentException();
+		if (n > size)
+			throw new EmptyStackException();
+		
+		clearRange(size - n, size);
+		size -= n;
+		++modCount;
+		releaseSegments(1);
+	}
+	
+	/**
+	 * Returns a checkpoint that rewind() can return to. The checkpoint is the
+	 * current size of the stack.
+	 */
+	public int mark()
+	{
+		return size;
+	}
+	
+	/**
+	 * Pops all elements pushed since the given checkpoint was taken. This
+	 * takes time proportional to the number of popped elements.
+	 * 
+	 * The stack is only restored to its state at the time of the checkpoint
+	 * if no element below the checkpoint was popped in the meantime.
+	 * 
+	 * @param mark
+	 *            A checkpoint previously returned by mark().
+	 */
+	public void rewind(int mark)
+	{
+		if (mark < 0 || mark > size)
+			throw new FmtIllegalArgumentException(
+			        "Invalid mark %d for stack of size %d", mark, size);
+		popN(size - mark);
+	}
+	
+	public T push(T item)
+	{
+		int segment = size >>> shift;
+		if (segment == allocated)
+			addSegment();
+		
+		segments[segment][size & mask] = item;
+		++size;
+		++modCount;
+		
+		return item;
+	}
+	
+	/**
+	 * Pushes the elements of the given collection in iteration order. The last
+	 * element ends up on top of the stack.
+	 */
+	public void pushAll(Collection<? extends T> items)
+	{
+		Object[] a = items.toArray();
+		ensureCapacity(size + a.length);
+		
+		int copied = 0;
+		while (copied < a.length)
+		{
+			int offset = size & mask;
+			int n = Math.min(a.length - copied, mask + 1 - offset);
+			System.arraycopy(a, copied, segments[size >>> shift], offset, n);
+			size += n;
+			copied += n;
+		}
+		++modCount;
+	}
+	
+	public void clear()
+	{
+		clearRange(0, size);
+		size = 0;
+		++modCount;
+		releaseSegments(1);
+	}
+	
+	// =========================================================================
+	
+	public void ensureCapacity(int minCapacity)
+	{
+		while (getCapacity() < minCapacity)
+			addSegment();
+	}
+	
+	/**
+	 * Releases all segments that are not occupied by the stack.
+	 */
+	public void trimToSize()
+	{
+		releaseSegments(0);
+		if (segments.length > allocated && allocated > 0)
+			segments = Arrays.copyOf(segments, allocated);
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns an iterator from the bottom to the top of the stack.
+	 */
+	@Override
+	public Iterator<T> iterator()
+	{
+		return new Iterator<T>()
+		{
+			private final int expectedModCount = modCount;
+			
+			private int i = 0;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return i < size;
+			}
+			
+			@SuppressWarnings("unchecked")
+			@Override
+			public T next()
+			{
+				if (modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				
+				if (!hasNext())
+					throw new NoSuchElementException();
+				
+				return (T) element(i++);
+			}
+			
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	// =========================================================================
+	
+	private Object element(int index)
+	{
+		return segments[index >>> shift][index & mask];
+	}
+	
+	private void addSegment()
+	{
+		if (allocated == (Integer.MAX_VALUE >>> shift))
+			throw new OutOfMemoryError("Stack too large");
+		
+		if (allocated == segments.length)
+			segments = Arrays.copyOf(segments, Math.max(4, allocated * 2));
+		segments[allocated++] = new Object[mask + 1];
+	}
+	
+	/**
+	 * Releases segments above the top of the stack but keeps the given number
+	 * of empty segments.
+	 */
+	private void releaseSegments(int spare)
+	{
+		int used = (int) ((size + (long) mask) >>> shift);
+		while (allocated > used + spare)
+			segments[--allocated] = null;
+	}
+	
+	private void clearRange(int from, int to)
+	{
+		while (from < to)
+		{
+			int offset = from & mask;
+			int n = Math.min(to - from, mask + 1 - offset);
+			Arrays.fill(segments[from >>> shift], offset, offset + n, null);
+			from += n;
+		}
+	}
+}
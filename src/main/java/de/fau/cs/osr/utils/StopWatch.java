@@ -17,32 +17,119 @@
 
 package de.fau.cs.osr.utils;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * A class to help benchmark code. It simulates a stop watch.
+ * 
+ * The watch reads the time from a Ticker. By default this is the wall clock
+ * (System.currentTimeMillis()), which has a coarse resolution and jumps when
+ * the system time is adjusted. In monotonic mode the watch reads
+ * System.nanoTime() instead, which is suitable for timing sub-millisecond
+ * work.
+ * 
+ * A watch can record laps and splits into an array that is preallocated when
+ * the watch is created. suspend() and resume() pause the watch without
+ * resetting the elapsed time. Apart from getDeadline(), none of the methods
+ * allocates memory.
  */
 public class StopWatch
 {
-	private long startTime = -1;
+	private final Ticker ticker;
+	
+	private final TimeUnit tickUnit;
+	
+	/** Elapsed time at each recorded split, in ticks. */
+	private final long[] splits;
+	
+	private int splitCount = 0;
 	
-	private long stopTime = -1;
+	private boolean started = false;
+	
+	private long startTime = 0;
+	
+	/** Elapsed time of all completed intervals, in ticks. */
+	private long accumulated = 0;
 	
 	private boolean running = false;
 	
 	// =========================================================================
 	
+	public StopWatch()
+	{
+		this(false, 0);
+	}
+	
+	/**
+	 * @param monotonic
+	 *            If true, the watch reads System.nanoTime() instead of
+	 *            System.currentTimeMillis().
+	 */
+	public StopWatch(boolean monotonic)
+	{
+		this(monotonic, 0);
+	}
+	
+	/**
+	 * @param monotonic
+	 *            If true, the watch reads System.nanoTime() instead of
+	 *            System.currentTimeMillis().
+	 * @param maxSplits
+	 *            The maximum number of laps and splits the watch can record.
+	 */
+	public StopWatch(boolean monotonic, int maxSplits)
+	{
+		this(monotonic ? Tickers.system() : Tickers.wallClock(), maxSplits);
+	}
+	
+	/**
+	 * @param ticker
+	 *            The clock the watch reads.
+	 */
+	public StopWatch(Ticker ticker)
+	{
+		this(ticker, 0);
+	}
+	
+	/**
+	 * @param ticker
+	 *            The clock the watch reads.
+	 * @param maxSplits
+	 *            The maximum number of laps and splits the watch can record.
+	 */
+	public StopWatch(Ticker ticker, int maxSplits)
+	{
+		if (ticker == null)
+			throw new NullPointerException();
+		
+		if (maxSplits < 0)
+			throw new FmtIllegalArgumentException(
+			        "Maximum number of splits must not be negative: %d", maxSplits);
+		
+		this.ticker = ticker;
+		this.tickUnit = ticker.getUnit();
+		this.splits = new long[maxSplits];
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Starts the watch if it is not running. The elapsed time and recorded
+	 * splits of a previous run are discarded.
+	 */
 	public StopWatch start()
 	{
 		if (!running)
-		{
-			startTime = System.currentTimeMillis();
-			running = true;
-		}
+			restart();
 		return this;
 	}
 	
 	public StopWatch restart()
 	{
-		startTime = System.currentTimeMillis();
+		accumulated = 0;
+		splitCount = 0;
+		startTime = ticker.read();
+		started = true;
 		running = true;
 		return this;
 	}
@@ -51,42 +138,188 @@ public class StopWatch
 	{
 		if (running)
 		{
-			stopTime = System.currentTimeMillis();
+			accumulated += ticker.read() - startTime;
 			running = false;
 		}
 		return this;
 	}
 	
+	/**
+	 * Pauses the watch. Unlike stop() followed by start(), suspend() followed
+	 * by resume() keeps accumulating the elapsed time.
+	 */
+	public StopWatch suspend()
+	{
+		return stop();
+	}
+	
+	/**
+	 * Continues a suspended watch. Starts the watch if it has never been
+	 * started.
+	 */
+	public StopWatch resume()
+	{
+		if (!running)
+		{
+			startTime = ticker.read();
+			started = true;
+			running = true;
+		}
+		return this;
+	}
+	
+	public StopWatch reset()
+	{
+		started = false;
+		startTime = 0;
+		accumulated = 0;
+		splitCount = 0;
+		running = false;
+		return this;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Records the current elapsed time.
+	 * 
+	 * @return The elapsed time in the watch's tick unit.
+	 * @see #getTickUnit()
+	 */
+	public long split()
+	{
+		if (splitCount == splits.length)
+			throw new IllegalStateException("No more splits can be recorded");
+		
+		long elapsed = getElapsedTicks();
+		splits[splitCount++] = elapsed;
+		return elapsed;
+	}
+	
+	/**
+	 * Records the current elapsed time like split().
+	 * 
+	 * @return The time since the previous lap or split (or since the watch was
+	 *         started) in the watch's tick unit.
+	 * @see #getTickUnit()
+	 */
+	public long lap()
+	{
+		long previous = (splitCount > 0) ? splits[splitCount - 1] : 0;
+		return split() - previous;
+	}
+	
+	/**
+	 * Returns the number of laps and splits recorded since the watch was
+	 * started.
+	 */
+	public int getSplitCount()
+	{
+		return splitCount;
+	}
+	
+	/**
+	 * Returns the elapsed time at the given split.
+	 */
+	public long getSplit(int index, TimeUnit unit)
+	{
+		checkSplitIndex(index);
+		return unit.convert(splits[index], tickUnit);
+	}
+	
+	/**
+	 * Returns the time between the given split and the previous split (or the
+	 * start of the watch).
+	 */
+	public long getLap(int index, TimeUnit unit)
+	{
+		checkSplitIndex(index);
+		long previous = (index > 0) ? splits[index - 1] : 0;
+		return unit.convert(splits[index] - previous, tickUnit);
+	}
+	
+	// =========================================================================
+	
 	/**
 	 * Returns elapsed time in milliseconds or 0 if the watch has never been
 	 * started.
 	 */
 	public long getElapsedTime()
 	{
-		if (startTime == -1)
+		return getElapsedTime(TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Returns elapsed time in the given unit or 0 if the watch has never been
+	 * started.
+	 */
+	public long getElapsedTime(TimeUnit unit)
+	{
+		return unit.convert(getElapsedTicks(), tickUnit);
+	}
+	
+	/**
+	 * Returns elapsed time in the watch's tick unit or 0 if the watch has
+	 * never been started.
+	 */
+	public long getElapsedTicks()
+	{
+		if (!started)
 		{
 			return 0;
 		}
 		if (running)
 		{
-			return System.currentTimeMillis() - startTime;
+			return accumulated + (ticker.read() - startTime);
 		}
 		else
 		{
-			return stopTime - startTime;
+			return accumulated;
 		}
 	}
 	
+	/**
+	 * Returns a deadline the given time budget after the watch was last
+	 * started, measured on the watch's ticker. Time the watch was suspended
+	 * is not deducted from the budget.
+	 * 
+	 * @throws IllegalStateException
+	 *             If the watch has never been started.
+	 */
+	public Deadline getDeadline(long budget, TimeUnit unit)
+	{
+		if (!started)
+			throw new IllegalStateException("The watch has never been started");
+		
+		long elapsed = tickUnit.toNanos(getElapsedTicks());
+		return Deadline.at(Tickers.readNanos(ticker) - elapsed, budget, unit, ticker);
+	}
+	
+	/**
+	 * Returns the unit of the watch's ticker: nanoseconds in monotonic mode,
+	 * milliseconds for the wall clock.
+	 */
+	public TimeUnit getTickUnit()
+	{
+		return tickUnit;
+	}
+	
+	public Ticker getTicker()
+	{
+		return ticker;
+	}
+	
 	public boolean isRunning()
 	{
 		return running;
 	}
 	
-	public StopWatch reset()
+	// =========================================================================
+	
+	private void checkSplitIndex(int index)
 	{
-		startTime = -1;
-		stopTime = -1;
-		running = false;
-		return this;
+		if (index < 0 || index >= splitCount)
+			throw new IndexOutOfBoundsException(
+			        "Index: " + index + ", Splits: " + splitCount);
 	}
 }
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A source of time stamps.
+ * 
+ * Classes that measure time (e.g. StopWatch) read the time from a Ticker
+ * instead of calling System.nanoTime() or System.currentTimeMillis()
+ * directly, so that a cheaper clock or a manually advanced clock for tests
+ * can be substituted.
+ * 
+ * @see Tickers
+ */
+public interface Ticker
+{
+	/**
+	 * Returns the current time stamp. Only differences between time stamps
+	 * of the same ticker are meaningful unless the ticker states otherwise.
+	 */
+	public long read();
+	
+	/**
+	 * Returns the unit of the time stamps returned by read().
+	 */
+	public TimeUnit getUnit();
+}
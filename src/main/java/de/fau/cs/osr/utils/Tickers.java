@@ -0,0 +1,113 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Standard tickers.
+ */
+public final class Tickers
+{
+	private static final Ticker SYSTEM = new Ticker()
+	{
+		@Override
+		public long read()
+		{
+			return System.nanoTime();
+		}
+		
+		@Override
+		public TimeUnit getUnit()
+		{
+			return TimeUnit.NANOSECONDS;
+		}
+		
+		@Override
+		public String toString()
+		{
+			return "Tickers.system()";
+		}
+	};
+	
+	private static final Ticker WALL_CLOCK = new Ticker()
+	{
+		@Override
+		public long read()
+		{
+			return System.currentTimeMillis();
+		}
+		
+		@Override
+		public TimeUnit getUnit()
+		{
+			return TimeUnit.MILLISECONDS;
+		}
+		
+		@Override
+		public String toString()
+		{
+			return "Tickers.wallClock()";
+		}
+	};
+	
+	// =========================================================================
+	
+	private Tickers()
+	{
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * A monotonic ticker that reads System.nanoTime().
+	 */
+	public static Ticker system()
+	{
+		return SYSTEM;
+	}
+	
+	/**
+	 * A ticker that reads System.currentTimeMillis(). Its time stamps are
+	 * milliseconds since the epoch, but it jumps when the system time is
+	 * adjusted.
+	 */
+	public static Ticker wallClock()
+	{
+		return WALL_CLOCK;
+	}
+	
+	/**
+	 * A shared monotonic ticker with a resolution of about one millisecond
+	 * that is cheap to read.
+	 * 
+	 * @see CoarseTicker
+	 */
+	public static Ticker coarse()
+	{
+		return CoarseTicker.getDefault();
+	}
+	
+	/**
+	 * Converts a time stamp of the given ticker to nanoseconds.
+	 */
+	static long readNanos(Ticker ticker)
+	{
+		return ticker.getUnit().toNanos(ticker.read());
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps types to values (e.g. handlers or converters) and resolves the value
+ * registered for the most specific supertype of a given class.
+ * 
+ * Candidates are tried in the order given by
+ * {@link ReflectionUtils#getTypeHierarchy(Class)}. The result of a lookup is
+ * memoized until the registrations change. This class is thread-safe.
+ */
+public final class TypeDispatchMap<V>
+{
+	private static final Object NONE = new Object();
+	
+	private final ConcurrentHashMap<Class<?>, V> registered =
+			new ConcurrentHashMap<Class<?>, V>();
+	
+	private volatile ConcurrentHashMap<Class<?>, Object> resolved =
+			new ConcurrentHashMap<Class<?>, Object>();
+	
+	// =========================================================================
+	
+	/**
+	 * Register a value for the given type.
+	 * 
+	 * @return The value previously registered for exactly this type or null.
+	 */
+	public V put(Class<?> type, V value)
+	{
+		if (type == null || value == null)
+			throw new NullPointerException();
+		
+		V previous = registered.put(type, value);
+		invalidate();
+		return previous;
+	}
+	
+	/**
+	 * Remove the value registered for exactly the given type.
+	 * 
+	 * @return The value that was registered for the type or null.
+	 */
+	public V remove(Class<?> type)
+	{
+		V previous = registered.remove(type);
+		if (previous != null)
+			invalidate();
+		return previous;
+	}
+	
+	public void clear()
+	{
+		registered.clear();
+		invalidate();
+	}
+	
+	public int size()
+	{
+		return registered.size();
+	}
+	
+	public boolean isEmpty()
+	{
+		return registered.isEmpty();
+	}
+	
+	/**
+	 * Returns the value registered for exactly the given type or null.
+	 */
+	public V getExact(Class<?> type)
+	{
+		return registered.get(type);
+	}
+	
+	/**
+	 * Returns the value registered for the given type or, if there is none,
+	 * the value registered for its most specific supertype.
+	 * 
+	 * @return The resolved value or null if neither the type nor any of its
+	 *         supertypes has a registered value.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(Class<?> type)
+	{
+		// Read the cache first: if the registrations change while we resolve,
+		// we only pollute a cache that has already been discarded.
+		ConcurrentHashMap<Class<?>, Object> cache = resolved;
+		
+		Object value = cache.get(type);
+		if (value == null)
+		{
+			value = resolve(type);
+			cache.put(type, value);
+		}
+		
+		return (value == NONE) ? null : (V) value;
+	}
+	
+	// =========================================================================
+	
+	private Object resolve(Class<?> type)
+	{
+		for (Class<?> candidate : ReflectionUtils.getTypeHierarchy(type))
+		{
+			V value = registered.get(candidate);
+			if (value != null)
+				return value;
+		}
+		return NONE;
+	}
+	
+	private void invalidate()
+	{
+		resolved = new ConcurrentHashMap<Class<?>, Object>();
+	}
+}
@@ -0,0 +1,313 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps statistics over a sliding window of samples: the most recent samples
+ * up to a given count and, optionally, only those recorded within a given
+ * period of time.
+ * 
+ * Sum, mean, minimum and maximum are exact and maintained in amortized O(1)
+ * per sample (minimum and maximum using monotonic deques). Percentiles are
+ * approximated with a relative error below 1% using a Fenwick tree over
+ * log-linear buckets, which costs O(log b) per sample and query, where b is
+ * the (fixed) number of buckets.
+ * 
+ * Samples must be non-negative, e.g. durations or sizes. This class is not
+ * thread-safe.
+ */
+public class WindowedStats
+{
+	/** Values below 2^7 are bucketed exactly. */
+	private static final LogLinearBuckets LAYOUT = new LogLinearBuckets(7);
+	
+	private static final int BUCKETS = LAYOUT.count(Long.MAX_VALUE);
+	
+	// =========================================================================
+	
+	private final long windowNanos;
+	
+	private final Ticker ticker;
+	
+	private final LongRingBuffer values;
+	
+	private final LongRingBuffer timestamps;
+	
+	/** Sequence numbers of samples with increasing values. */
+	private final LongRingBuffer minDeque;
+	
+	/** Sequence numbers of samples with decreasing values. */
+	private final LongRingBuffer maxDeque;
+	
+	/** Fenwick tree over the bucket counts, 1-based. */
+	private final int[] tree = new int[BUCKETS + 1];
+	
+	private long nextSequence = 0;
+	
+	private long sum = 0;
+	
+	// =========================================================================
+	
+	/**
+	 * Create statistics over the most recent samples.
+	 * 
+	 * @param capacity
+	 *            The number of samples in the window.
+	 */
+	public WindowedStats(int capacity)
+	{
+		this(capacity, 0, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Create statistics over the samples recorded within the given period of
+	 * time, but at most the given number of most recent samples.
+	 * 
+	 * @param capacity
+	 *            The maximum number of samples in the window.
+	 * @param window
+	 *            The length of the window in the given unit, 0 for no time
+	 *            limit.
+	 */
+	public WindowedStats(int capacity, long window, TimeUnit unit)
+	{
+		this(capacity, window, unit, Tickers.system());
+	}
+	
+	/**
+	 * Create statistics over the samples recorded within the given period of
+	 * time, as measured by the given ticker, but at most the given number of
+	 * most recent samples.
+	 */
+	public WindowedStats(int capacity, long window, TimeUnit unit, Ticker ticker)
+	{
+		if (ticker == null)
+			throw new NullPointerException();
+		
+		if (window < 0)
+			throw new FmtIllegalArgumentException(
+					"Illegal window length: %d", window);
+		
+		this.windowNanos = unit.toNanos(window);
+		this.ticker = ticker;
+		this.values = new LongRingBuffer(capacity);
+		this.timestamps = (windowNanos > 0) ? new LongRingBuffer(capacity) : null;
+		this.minDeque = new LongRingBuffer(capacity);
+		this.maxDeque = new LongRingBuffer(capacity);
+	}
+	
+	// =========================================================================
+	
+	public void add(long value)
+	{
+		add(value, (timestamps != null) ? Tickers.readNanos(ticker) : 0);
+	}
+	
+	/**
+	 * Add the elapsed time of the given watch in nanoseconds.
+	 */
+	public void add(StopWatch watch)
+	{
+		add(watch.getElapsedTime(TimeUnit.NANOSECONDS));
+	}
+	
+	/**
+	 * Add a sample recorded at the given time.
+	 * 
+	 * @param nanoTime
+	 *            The time of the sample in nanoseconds as given by the ticker
+	 *            of these statistics (System.nanoTime() by default). Samples
+	 *            must be added in chronological order.
+	 */
+	public void add(long value, long nanoTime)
+	{
+		if (value < 0)
+			throw new FmtIllegalArgumentException(
+					"Samples must not be negative: %d", value);
+		
+		expire(nanoTime);
+		if (values.isFull())
+			evictOldest();
+		
+		long seq = nextSequence++;
+		
+		values.add(value);
+		if (timestamps != null)
+			timestamps.add(nanoTime);
+		
+		sum += value;
+		
+		while (!minDeque.isEmpty() && valueOf(minDeque.peekLast()) >= value)
+			minDeque.removeLast();
+		minDeque.add(seq);
+		
+		while (!maxDeque.isEmpty() && valueOf(maxDeque.peekLast()) <= value)
+			maxDeque.removeLast();
+		maxDeque.add(seq);
+		
+		updateTree(LAYOUT.index(value), 1);
+	}
+	
+	public void clear()
+	{
+		values.clear();
+		if (timestamps != null)
+			timestamps.clear();
+		minDeque.clear();
+		maxDeque.clear();
+		Arrays.fill(tree, 0);
+		sum = 0;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns the number of samples in the window.
+	 */
+	public int size()
+	{
+		expire(Tickers.readNanos(ticker));
+		return values.size();
+	}
+	
+	public long getSum()
+	{
+		expire(Tickers.readNanos(ticker));
+		return sum;
+	}
+	
+	/**
+	 * Returns the arithmetic mean or NaN if the window is empty.
+	 */
+	public double getMean()
+	{
+		expire(Tickers.readNanos(ticker));
+		return values.isEmpty() ? Double.NaN : sum / (double) values.size();
+	}
+	
+	/**
+	 * @throws NoSuchElementException
+	 *             If the window is empty.
+	 */
+	public long getMin()
+	{
+		expire(Tickers.readNanos(ticker));
+		if (values.isEmpty())
+			throw new NoSuchElementException();
+		return valueOf(minDeque.peekFirst());
+	}
+	
+	/**
+	 * @throws NoSuchElementException
+	 *             If the window is empty.
+	 */
+	public long getMax()
+	{
+		expire(Tickers.readNanos(ticker));
+		if (values.isEmpty())
+			throw new NoSuchElementException();
+		return valueOf(maxDeque.peekFirst());
+	}
+	
+	/**
+	 * Returns an approximation of the given percentile. The result is always
+	 * between getMin() and getMax().
+	 * 
+	 * @param percentile
+	 *            A value between 0 and 100, e.g. 99 for the 99th percentile.
+	 * @throws NoSuchElementException
+	 *             If the window is empty.
+	 */
+	public long getPercentile(double percentile)
+	{
+		if (percentile < 0 || percentile > 100)
+			throw new FmtIllegalArgumentException(
+					"Illegal percentile: %f", percentile);
+		
+		long min = getMin();
+		long max = getMax();
+		
+		int n = values.size();
+		int rank = Math.max(1, (int) Math.ceil(percentile / 100. * n));
+		long value = LAYOUT.midpoint(findBucket(rank));
+		
+		return Math.max(min, Math.min(max, value));
+	}
+	
+	// =========================================================================
+	
+	private void expire(long now)
+	{
+		if (timestamps == null)
+			return;
+		
+		while (!timestamps.isEmpty() && now - timestamps.peekFirst() > windowNanos)
+			evictOldest();
+	}
+	
+	private void evictOldest()
+	{
+		long seq = nextSequence - values.size();
+		long value = values.removeFirst();
+		if (timestamps != null)
+			timestamps.removeFirst();
+		
+		sum -= value;
+		
+		if (minDeque.peekFirst() == seq)
+			minDeque.removeFirst();
+		if (maxDeque.peekFirst() == seq)
+			maxDeque.removeFirst();
+		
+		updateTree(LAYOUT.index(value), -1);
+	}
+	
+	private long valueOf(long seq)
+	{
+		return values.get((int) (seq - (nextSequence - values.size())));
+	}
+	
+	private void updateTree(int bucket, int delta)
+	{
+		for (int i = bucket + 1; i <= BUCKETS; i += i & -i)
+			tree[i] += delta;
+	}
+	
+	/**
+	 * Returns the smallest bucket for which the number of samples in this and
+	 * all lower buckets is at least rank.
+	 */
+	private int findBucket(int rank)
+	{
+		int pos = 0;
+		for (int step = Integer.highestOneBit(BUCKETS); step > 0; step >>= 1)
+		{
+			int next = pos + step;
+			if (next <= BUCKETS && tree[next] < rank)
+			{
+				pos = next;
+				rank -= tree[next];
+			}
+		}
+		return pos;
+	}
+}
@@ -0,0 +1,480 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+
+/**
+ * A bounded ring buffer that makes producers wait when it is full instead of
+ * overwriting the oldest element. Consumers wait when it is empty.
+ * 
+ * Waiting is implemented with a ReentrantLock and its Conditions, which park
+ * the waiting thread. Unlike monitors (synchronized), this does not pin
+ * virtual threads to their carrier thread. No nodes are allocated per element
+ * and drainTo() transfers any number of elements under a single acquisition
+ * of the lock.
+ * 
+ * Null elements are not permitted. Iterators work on a snapshot of the buffer;
+ * Iterator.remove() removes the last returned element from the buffer if it
+ * is still there.
+ */
+public class BlockingRingBuffer<T>
+        extends
+            AbstractQueue<T>
+        implements
+            BlockingQueue<T>
+{
+	private final Object[] items;
+	
+	private int head = 0;
+	
+	private int count = 0;
+	
+	private final ReentrantLock lock;
+	
+	private final Condition notEmpty;
+	
+	private final Condition notFull;
+	
+	// =========================================================================
+	
+	public BlockingRingBuffer(int capacity)
+	{
+		this(capacity, false);
+	}
+	
+	/**
+	 * @param fair
+	 *            If true, waiting threads are served in FIFO order.
+	 */
+	public BlockingRingBuffer(int capacity, boolean fair)
+	{
+		if (capacity < 1)
+			throw new FmtIllegalArgumentException(
+					"Capacity must be positive: %d", capacity);
+		
+		this.items = new Object[capacity];
+		this.lock = new ReentrantLock(fair);
+		this.notEmpty = lock.newCondition();
+		this.notFull = lock.newCondition();
+	}
+	
+	// =========================================================================
+	
+	public int getCapacity()
+	{
+		return items.length;
+	}
+	
+	@Override
+	public int size()
+	{
+		lock.lock();
+		try
+		{
+			return count;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public int remainingCapacity()
+	{
+		lock.lock();
+		try
+		{
+			return items.length - count;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public boolean offer(T x)
+	{
+		checkNotNull(x);
+		lock.lock();
+		try
+		{
+			if (count == items.length)
+				return false;
+			enqueue(x);
+			return true;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public boolean offer(T x, long timeout, TimeUnit unit) throws InterruptedException
+	{
+		checkNotNull(x);
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try
+		{
+			while (count == items.length)
+			{
+				if (nanos <= 0)
+					return false;
+				nanos = notFull.awaitNanos(nanos);
+			}
+			enqueue(x);
+			return true;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public void put(T x) throws InterruptedException
+	{
+		checkNotNull(x);
+		lock.lockInterruptibly();
+		try
+		{
+			while (count == items.length)
+				notFull.await();
+			enqueue(x);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public T poll()
+	{
+		lock.lock();
+		try
+		{
+			return (count == 0) ? null : dequeue();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public T poll(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try
+		{
+			while (count == 0)
+			{
+				if (nanos <= 0)
+					return null;
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return dequeue();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public T take() throws InterruptedException
+	{
+		lock.lockInterruptibly();
+		try
+		{
+			while (count == 0)
+				notEmpty.await();
+			return dequeue();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public T peek()
+	{
+		lock.lock();
+		try
+		{
+			return (T) items[head];
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public int drainTo(Collection<? super T> c)
+	{
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Removes up to maxElements elements and adds them to the given
+	 * collection while holding the lock. Each element is only removed from
+	 * the buffer after it was added to the collection; if adding an element
+	 * fails, it and all following elements remain in the buffer.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public int drainTo(Collection<? super T> c, int maxElements)
+	{
+		if (c == null)
+			throw new NullPointerException();
+		if (c == this)
+			throw new IllegalArgumentException();
+		
+		if (maxElements <= 0)
+			return 0;
+		
+		lock.lock();
+		try
+		{
+			int n = Math.min(count, maxElements);
+			int i = 0;
+			try
+			{
+				while (i < n)
+				{
+					c.add((T) items[head]);
+					items[head] = null;
+					head = wrap(head + 1);
+					++i;
+				}
+				return n;
+			}
+			finally
+			{
+				if (i > 0)
+				{
+					count -= i;
+					notFull.signalAll();
+				}
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Removes the first element that equals the given object. This takes time
+	 * proportional to the size of the buffer.
+	 */
+	@Override
+	public boolean remove(Object o)
+	{
+		if (o == null)
+			return false;
+		
+		lock.lock();
+		try
+		{
+			for (int i = 0; i < count; ++i)
+			{
+				int j = wrap(head + i);
+				if (o.equals(items[j]))
+				{
+					removeAt(i);
+					return true;
+				}
+			}
+			return false;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public void clear()
+	{
+		lock.lock();
+		try
+		{
+			Arrays.fill(items, null);
+			head = 0;
+			count = 0;
+			notFull.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	@Override
+	public Object[] toArray()
+	{
+		lock.lock();
+		try
+		{
+			Object[] a = new Object[count];
+			int first = Math.min(count, items.length - head);
+			System.arraycopy(items, head, a, 0, first);
+			System.arraycopy(items, 0, a, first, count - first);
+			return a;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns an iterator over a snapshot of the buffer.
+	 */
+	@Override
+	public Iterator<T> iterator()
+	{
+		final Object[] snapshot = toArray();
+		return new Iterator<T>()
+		{
+			private int i = 0;
+			
+			private Object last = null;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return i < snapshot.length;
+			}
+			
+			@SuppressWarnings("unchecked")
+			@Override
+			public T next()
+			{
+				if (!hasNext())
+					throw new NoSuchElementException();
+				last = snapshot[i++];
+				return (T) last;
+			}
+			
+			@Override
+			public void remove()
+			{
+				if (last == null)
+					throw new IllegalStateException();
+				removeIdentical(last);
+				last = null;
+			}
+		};
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Must be called while holding the lock and if there is space.
+	 */
+	private void enqueue(T x)
+	{
+		items[wrap(head + count)] = x;
+		++count;
+		notEmpty.signal();
+	}
+	
+	/**
+	 * Must be called while holding the lock and if the buffer is not empty.
+	 */
+	@SuppressWarnings("unchecked")
+	private T dequeue()
+	{
+		T x = (T) items[head];
+		items[head] = null;
+		head = wrap(head + 1);
+		--count;
+		notFull.signal();
+		return x;
+	}
+	
+	private void removeIdentical(Object o)
+	{
+		lock.lock();
+		try
+		{
+			for (int i = 0; i < count; ++i)
+			{
+				if (items[wrap(head + i)] == o)
+				{
+					removeAt(i);
+					return;
+				}
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Removes the element at the given position counted from the head by
+	 * moving the following elements one slot forward. Must be called while
+	 * holding the lock.
+	 */
+	private void removeAt(int index)
+	{
+		for (int i = index; i < count - 1; ++i)
+			items[wrap(head + i)] = items[wrap(head + i + 1)];
+		items[wrap(head + count - 1)] = null;
+		--count;
+		notFull.signal();
+	}
+	
+	private int wrap(int i)
+	{
+		return (i >= items.length) ? i - items.length : i;
+	}
+	
+	private static void checkNotNull(Object x)
+	{
+		if (x == null)
+			throw new NullPointerException("Null elements are not permitted");
+	}
+}
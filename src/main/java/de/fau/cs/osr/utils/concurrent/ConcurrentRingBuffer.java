@@ -0,0 +1,200 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+
+/**
+ * A bounded, lock-free ring buffer for handing elements from producer threads
+ * to a single consumer thread. Unlike RingBuffer, elements are never
+ * overwritten: offer() fails if the buffer is full.
+ * 
+ * Null elements are not permitted. The capacity is always rounded up to a
+ * power of two.
+ * 
+ * @see SpscRingBuffer
+ * @see MpscRingBuffer
+ */
+public abstract class ConcurrentRingBuffer<T>
+{
+	protected final int capacity;
+	
+	protected final int mask;
+	
+	protected final WaitStrategy waitStrategy;
+	
+	// =========================================================================
+	
+	protected ConcurrentRingBuffer(int capacity, WaitStrategy waitStrategy)
+	{
+		if (capacity < 1 || capacity > (1 << 30))
+			throw new FmtIllegalArgumentException(
+					"Illegal capacity: %d", capacity);
+		
+		if (waitStrategy == null)
+			throw new NullPointerException();
+		
+		this.capacity = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = this.capacity - 1;
+		this.waitStrategy = waitStrategy;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Add an element if there is space.
+	 * 
+	 * @return False if the buffer is full.
+	 */
+	public abstract boolean offer(T x);
+	
+	/**
+	 * Remove the oldest element. Must only be called by the consumer thread.
+	 * 
+	 * @return The oldest element or null if the buffer is empty.
+	 */
+	public abstract T poll();
+	
+	/**
+	 * Remove up to limit elements and pass them to the given consumer in the
+	 * order they were added. Must only be called by the consumer thread.
+	 * 
+	 * @return The number of elements removed.
+	 */
+	public abstract int drain(Consumer<? super T> consumer, int limit);
+	
+	/**
+	 * Returns an estimate of the number of elements in the buffer. The result
+	 * is only exact if neither producers nor the consumer are active.
+	 */
+	public abstract int size();
+	
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+	
+	public int getCapacity()
+	{
+		return capacity;
+	}
+	
+	public WaitStrategy getWaitStrategy()
+	{
+		return waitStrategy;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Add an element, waiting for space according to the wait strategy.
+	 */
+	public void put(T x) throws InterruptedException
+	{
+		int counter = 0;
+		while (!offer(x))
+		{
+			if (Thread.interrupted())
+				throw new InterruptedException();
+			waitStrategy.idle(counter++);
+		}
+	}
+	
+	/**
+	 * Add an element, waiting for space according to the wait strategy but at
+	 * most for the given time.
+	 * 
+	 * @return False if the element could not be added in time.
+	 */
+	public boolean offer(T x, long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int counter = 0;
+		while (!offer(x))
+		{
+			if (Thread.interrupted())
+				throw new InterruptedException();
+			if (deadline - System.nanoTime() <= 0)
+				return false;
+			waitStrategy.idle(counter++);
+		}
+		return true;
+	}
+	
+	/**
+	 * Remove the oldest element, waiting for one according to the wait
+	 * strategy. Must only be called by the consumer thread.
+	 */
+	public T take() throws InterruptedException
+	{
+		int counter = 0;
+		T x;
+		while ((x = poll()) == null)
+		{
+			if (Thread.interrupted())
+				throw new InterruptedException();
+			waitStrategy.idle(counter++);
+		}
+		return x;
+	}
+	
+	/**
+	 * Remove the oldest element, waiting for one according to the wait
+	 * strategy but at most for the given time. Must only be called by the
+	 * consumer thread.
+	 * 
+	 * @return The oldest element or null if none became available in time.
+	 */
+	public T poll(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int counter = 0;
+		T x;
+		while ((x = poll()) == null)
+		{
+			if (Thread.interrupted())
+				throw new InterruptedException();
+			if (deadline - System.nanoTime() <= 0)
+				return null;
+			waitStrategy.idle(counter++);
+		}
+		return x;
+	}
+	
+	/**
+	 * Remove all elements currently in the buffer and pass them to the given
+	 * consumer. Must only be called by the consumer thread.
+	 * 
+	 * @return The number of elements removed.
+	 */
+	public int drain(Consumer<? super T> consumer)
+	{
+		return drain(consumer, capacity);
+	}
+	
+	// =========================================================================
+	
+	protected static void checkNotNull(Object x)
+	{
+		if (x == null)
+			throw new NullPointerException("Null elements are not permitted");
+	}
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.EmptyStackException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+
+/**
+ * A lock-free stack (Treiber stack) with the push/pop/peek/isEmpty API of
+ * ArrayStack.
+ * 
+ * Optionally, threads whose compare-and-set on the top of the stack fails
+ * try to eliminate their operation: a pushing thread offers its element in a
+ * random slot of a small elimination array and waits briefly, a popping
+ * thread looks for an offered element in a random slot. A push and a pop
+ * that meet this way complete without touching the top of the stack, which
+ * relieves the contention on it when many threads push and pop at the same
+ * time.
+ * 
+ * Null elements are not permitted. This class is thread-safe.
+ * 
+ * @see de.fau.cs.osr.utils.ArrayStack
+ */
+public class ConcurrentStack<T>
+{
+	private static final int ELIMINATION_SPINS = 128;
+	
+	private final AtomicReference<Node<T>> top = new AtomicReference<Node<T>>();
+	
+	private final AtomicReferenceArray<Node<T>> elimination;
+	
+	// =========================================================================
+	
+	/**
+	 * Creates a stack without elimination.
+	 */
+	public ConcurrentStack()
+	{
+		this(0);
+	}
+	
+	/**
+	 * @param eliminationSlots
+	 *            The size of the elimination array. A value of 0 disables
+	 *            elimination. The number of processors is a good choice for
+	 *            heavily contended stacks.
+	 */
+	public ConcurrentStack(int eliminationSlots)
+	{
+		if (eliminationSlots < 0)
+			throw new FmtIllegalArgumentException(
+			        "Number of elimination slots must not be negative: %d",
+			        eliminationSlots);
+		
+		this.elimination = (eliminationSlots > 0) ?
+		        new AtomicReferenceArray<Node<T>>(eliminationSlots) :
+		        null;
+	}
+	
+	// =========================================================================
+	
+	public boolean isEmpty()
+	{
+		return top.get() == null;
+	}
+	
+	public T peek()
+	{
+		Node<T> node = top.get();
+		if (node == null)
+			throw new EmptyStackException();
+		return node.item;
+	}
+	
+	public T push(T item)
+	{
+		if (item == null)
+			throw new NullPointerException();
+		
+		Node<T> node = new Node<T>(item);
+		while (true)
+		{
+			Node<T> t = top.get();
+			node.next = t;
+			if (top.compareAndSet(t, node))
+				return item;
+			
+			if (elimination != null && tryEliminatePush(node))
+				return item;
+		}
+	}
+	
+	public T pop()
+	{
+		T item = poll();
+		if (item == null)
+			throw new EmptyStackException();
+		return item;
+	}
+	
+	/**
+	 * Removes and returns the top element or returns null if the stack is
+	 * empty.
+	 */
+	public T poll()
+	{
+		while (true)
+		{
+			Node<T> t = top.get();
+			if (t == null)
+				return null;
+			
+			if (top.compareAndSet(t, t.next))
+				return t.item;
+			
+			if (elimination != null)
+			{
+				Node<T> node = tryEliminatePop();
+				if (node != null)
+					return node.item;
+			}
+		}
+	}
+	
+	// =========================================================================
+	
+	private boolean tryEliminatePush(Node<T> node)
+	{
+		int slot = ThreadLocalRandom.current().nextInt(elimination.length());
+		if (!elimination.compareAndSet(slot, null, node))
+			return false;
+		
+		for (int i = 0; i < ELIMINATION_SPINS; ++i)
+		{
+			if (elimination.get(slot) != node)
+				return true;
+		}
+		
+		// If withdrawing the offer fails, a popping thread has taken it
+		return !elimination.compareAndSet(slot, node, null);
+	}
+	
+	private Node<T> tryEliminatePop()
+	{
+		int slot = ThreadLocalRandom.current().nextInt(elimination.length());
+		Node<T> node = elimination.get(slot);
+		if (node != null && elimination.compareAndSet(slot, node, null))
+			return node;
+		return null;
+	}
+	
+	// =========================================================================
+	
+	private static final class Node<T>
+	{
+		final T item;
+		
+		Node<T> next;
+		
+		Node(T item)
+		{
+			this.item = item;
+		}
+	}
+}
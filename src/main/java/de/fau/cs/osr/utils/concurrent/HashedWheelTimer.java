@@ -0,0 +1,363 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import de.fau.cs.osr.utils.Deadline;
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+import de.fau.cs.osr.utils.Ticker;
+import de.fau.cs.osr.utils.Tickers;
+
+/**
+ * A timer for large numbers of timeouts that rarely fire, e.g. one timeout
+ * per processed document.
+ * 
+ * Timeouts are kept in a wheel of buckets, each covering one tick. A single
+ * worker thread advances the wheel once per tick and runs the tasks of the
+ * expired timeouts in the current bucket. Scheduling and cancelling a
+ * timeout is O(1), allocates a single small object and takes no locks:
+ * new timeouts are handed to the worker through a lock-free queue, and
+ * cancelled timeouts are removed by the worker when it reaches their bucket.
+ * 
+ * Time is read from a monotonic Ticker (System.nanoTime() by default). The
+ * worker sleeps for one tick at a time and then checks the ticker again, so
+ * it also follows tickers that are not driven by the system clock.
+ * 
+ * Timeouts fire up to one tick late. Tasks are run on the worker thread and
+ * must therefore be short; exceptions thrown by a task are passed to the
+ * thread's uncaught exception handler and do not stop the timer.
+ */
+public class HashedWheelTimer
+        implements
+            AutoCloseable
+{
+	private final Ticker ticker;
+	
+	private final long tickNanos;
+	
+	private final Bucket[] wheel;
+	
+	private final int mask;
+	
+	private final ConcurrentLinkedQueue<Entry> pending =
+	        new ConcurrentLinkedQueue<Entry>();
+	
+	private final Thread worker;
+	
+	private final long startTime;
+	
+	private volatile boolean closed = false;
+	
+	// =========================================================================
+	
+	/**
+	 * Creates a timer with a tick of 10 ms and 512 buckets.
+	 */
+	public HashedWheelTimer()
+	{
+		this(10, TimeUnit.MILLISECONDS, 512);
+	}
+	
+	/**
+	 * Creates a timer and starts its worker thread.
+	 * 
+	 * @param tick
+	 *            The resolution of the timer.
+	 * @param wheelSize
+	 *            The number of buckets, rounded up to a power of two.
+	 *            Timeouts further in the future than wheelSize ticks go
+	 *            around the wheel several times.
+	 */
+	public HashedWheelTimer(long tick, TimeUnit unit, int wheelSize)
+	{
+		this(tick, unit, wheelSize, Tickers.system());
+	}
+	
+	/**
+	 * Creates a timer that reads the time from the given monotonic ticker and
+	 * starts its worker thread.
+	 */
+	public HashedWheelTimer(long tick, TimeUnit unit, int wheelSize, Ticker ticker)
+	{
+		if (tick < 1)
+			throw new FmtIllegalArgumentException(
+			        "Tick must be positive: %d", tick);
+		if (wheelSize < 1 || wheelSize > (1 << 30))
+			throw new FmtIllegalArgumentException(
+			        "Wheel size must be in [1, 2^30]: %d", wheelSize);
+		
+		int size = (wheelSize == 1) ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < size; ++i)
+			this.wheel[i] = new Bucket();
+		this.mask = size - 1;
+		this.tickNanos = unit.toNanos(tick);
+		this.ticker = ticker;
+		this.startTime = now();
+		
+		this.worker = new Thread("hashed-wheel-timer")
+		{
+			@Override
+			public void run()
+			{
+				HashedWheelTimer.this.run();
+			}
+		};
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Schedules the given task to run once after the given delay.
+	 */
+	public Timeout newTimeout(Runnable task, long delay, TimeUnit unit)
+	{
+		if (task == null)
+			throw new NullPointerException();
+		if (closed)
+			throw new IllegalStateException("Timer has been closed");
+		
+		long deadline = now() - startTime + Math.max(0, unit.toNanos(delay));
+		Entry entry = new Entry(task, deadline);
+		pending.add(entry);
+		return entry;
+	}
+	
+	/**
+	 * Schedules the given task to run once the given deadline has expired.
+	 * The deadline must be measured on the ticker of this timer.
+	 */
+	public Timeout newTimeout(Runnable task, Deadline deadline)
+	{
+		if (deadline.getTicker() != ticker)
+			throw new FmtIllegalArgumentException(
+			        "Deadline is measured on a different ticker than this timer");
+		return newTimeout(task, deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+	}
+	
+	public Ticker getTicker()
+	{
+		return ticker;
+	}
+	
+	/**
+	 * Stops the worker thread. Timeouts that have not yet expired will never
+	 * fire.
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		LockSupport.unpark(worker);
+	}
+	
+	// =========================================================================
+	
+	private void run()
+	{
+		long tick = 0;
+		while (!closed)
+		{
+			long wakeUp = (tick + 1) * tickNanos;
+			long now;
+			while ((now = now() - startTime) < wakeUp)
+			{
+				LockSupport.parkNanos(this, Math.min(wakeUp - now, tickNanos));
+				if (closed)
+					return;
+			}
+			
+			transferPending(tick);
+			wheel[(int) (tick & mask)].expire(tick);
+			++tick;
+		}
+	}
+	
+	private long now()
+	{
+		return ticker.getUnit().toNanos(ticker.read());
+	}
+	
+	private void transferPending(long currentTick)
+	{
+		for (Entry e; (e = pending.poll()) != null;)
+		{
+			if (e.state != Entry.ST_PENDING)
+				continue;
+			
+			// Timeouts that are already due go into the current bucket
+			long due = Math.max(currentTick, e.deadline / tickNanos);
+			e.rounds = (due - currentTick) / wheel.length;
+			wheel[(int) (due & mask)].add(e);
+		}
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * A handle to a scheduled task.
+	 */
+	public static interface Timeout
+	{
+		/**
+		 * Cancels the timeout.
+		 * 
+		 * @return False if the task has already run or been cancelled.
+		 */
+		public boolean cancel();
+		
+		public boolean isCancelled();
+		
+		public boolean isExpired();
+	}
+	
+	private static final class Entry
+	        implements
+	            Timeout
+	{
+		static final int ST_PENDING = 0;
+		
+		static final int ST_CANCELLED = 1;
+		
+		static final int ST_EXPIRED = 2;
+		
+		static final AtomicIntegerFieldUpdater<Entry> STATE =
+		        AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+		
+		final Runnable task;
+		
+		/** Nanoseconds since the start of the timer. */
+		final long deadline;
+		
+		volatile int state = ST_PENDING;
+		
+		// Only accessed by the worker thread
+		
+		long rounds;
+		
+		Entry prev;
+		
+		Entry next;
+		
+		Entry(Runnable task, long deadline)
+		{
+			this.task = task;
+			this.deadline = deadline;
+		}
+		
+		@Override
+		public boolean cancel()
+		{
+			return STATE.compareAndSet(this, ST_PENDING, ST_CANCELLED);
+		}
+		
+		@Override
+		public boolean isCancelled()
+		{
+			return state == ST_CANCELLED;
+		}
+		
+		@Override
+		public boolean isExpired()
+		{
+			return state == ST_EXPIRED;
+		}
+		
+		void expire()
+		{
+			if (!STATE.compareAndSet(this, ST_PENDING, ST_EXPIRED))
+				return;
+			
+			try
+			{
+				task.run();
+			}
+			catch (Throwable t)
+			{
+				Thread current = Thread.currentThread();
+				current.getUncaughtExceptionHandler().uncaughtException(current, t);
+			}
+		}
+	}
+	
+	/**
+	 * A doubly linked list of entries, only accessed by the worker thread.
+	 */
+	private static final class Bucket
+	{
+		private Entry head;
+		
+		private Entry tail;
+		
+		void add(Entry e)
+		{
+			e.prev = tail;
+			e.next = null;
+			if (tail == null)
+				head = e;
+			else
+				tail.next = e;
+			tail = e;
+		}
+		
+		void expire(long currentTick)
+		{
+			Entry e = head;
+			while (e != null)
+			{
+				Entry next = e.next;
+				if (e.state != Entry.ST_PENDING)
+				{
+					remove(e);
+				}
+				else if (e.rounds <= 0)
+				{
+					remove(e);
+					e.expire();
+				}
+				else
+				{
+					--e.rounds;
+				}
+				e = next;
+			}
+		}
+		
+		private void remove(Entry e)
+		{
+			if (e.prev == null)
+				head = e.next;
+			else
+				e.prev.next = e.next;
+			
+			if (e.next == null)
+				tail = e.prev;
+			else
+				e.next.prev = e.prev;
+			
+			e.prev = null;
+			e.next = null;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A lock-free ring buffer for any number of producer threads and exactly one
+ * consumer thread.
+ * 
+ * Producers claim a slot by incrementing the tail with a CAS and then publish
+ * the element in that slot with an ordered store. The consumer waits for a
+ * claimed slot to be published before moving on, so elements are always
+ * consumed in the order their slots were claimed.
+ */
+public final class MpscRingBuffer<T>
+        extends
+            ConcurrentRingBuffer<T>
+{
+	private final AtomicReferenceArray<T> buffer;
+	
+	/** Next position to claim, shared by all producers. */
+	private final PaddedSequence tail = new PaddedSequence(0);
+	
+	/** Next position to read, written by the consumer only. */
+	private final PaddedSequence head = new PaddedSequence(0);
+	
+	/** Producers may claim positions below this limit without reading head. */
+	private final PaddedSequence producerLimit;
+	
+	// =========================================================================
+	
+	public MpscRingBuffer(int capacity)
+	{
+		this(capacity, WaitStrategies.defaultStrategy());
+	}
+	
+	public MpscRingBuffer(int capacity, WaitStrategy waitStrategy)
+	{
+		super(capacity, waitStrategy);
+		this.buffer = new AtomicReferenceArray<T>(this.capacity);
+		this.producerLimit = new PaddedSequence(this.capacity);
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public boolean offer(T x)
+	{
+		checkNotNull(x);
+		
+		long t;
+		do
+		{
+			t = tail.get();
+			if (t >= producerLimit.get())
+			{
+				long limit = head.get() + capacity;
+				if (t >= limit)
+					return false;
+				producerLimit.set(limit);
+			}
+		} while (!tail.compareAndSet(t, t + 1));
+		
+		buffer.lazySet((int) t & mask, x);
+		return true;
+	}
+	
+	@Override
+	public T poll()
+	{
+		long h = head.get();
+		int index = (int) h & mask;
+		
+		T x = buffer.get(index);
+		if (x == null)
+		{
+			if (h == tail.get())
+				return null;
+			
+			// A producer has claimed the slot but not yet published its
+			// element. This usually takes a few instructions, but the
+			// producer may have been descheduled in between.
+			int counter = 0;
+			while ((x = buffer.get(index)) == null)
+				waitStrategy.idle(counter++);
+		}
+		
+		buffer.lazySet(index, null);
+		head.lazySet(h + 1);
+		return x;
+	}
+	
+	@Override
+	public int drain(Consumer<? super T> consumer, int limit)
+	{
+		long h = head.get();
+		
+		int n = 0;
+		while (n < limit)
+		{
+			int index = (int) h & mask;
+			T x = buffer.get(index);
+			if (x == null)
+				break;
+			
+			buffer.lazySet(index, null);
+			head.lazySet(++h);
+			consumer.accept(x);
+			++n;
+		}
+		return n;
+	}
+	
+	@Override
+	public int size()
+	{
+		long h = head.get();
+		long t = tail.get();
+		return (int) Math.max(0, Math.min(t - h, capacity));
+	}
+}
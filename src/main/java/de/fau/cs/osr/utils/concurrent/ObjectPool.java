@@ -0,0 +1,229 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import de.fau.cs.osr.utils.ArrayStack;
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+
+/**
+ * A pool of reusable objects, e.g. StringBuilders, scratch buffers or
+ * Matchers.
+ * 
+ * Each thread borrows from and releases to its own stack of idle objects,
+ * which requires no synchronization. If a thread's stack is full (e.g.
+ * because objects borrowed by one thread are released by another), released
+ * objects go to a bounded stack shared by all threads. Threads whose own
+ * stack is empty borrow from the shared stack before they create a new
+ * object. The shared stack is only accessed if its lock is free: a contended
+ * release discards the object and a contended borrow creates a new one. The
+ * pool therefore never blocks and never holds more than the configured
+ * number of idle objects per thread plus the shared maximum.
+ * 
+ * The reset hook is applied to an object when it is released, so that idle
+ * objects do not retain references to data. An object must not be used after
+ * it has been released. This class is thread-safe.
+ */
+public class ObjectPool<T>
+{
+	public static final int DEFAULT_MAX_IDLE_PER_THREAD = 8;
+	
+	public static final int DEFAULT_MAX_SHARED_IDLE = 64;
+	
+	private final Supplier<? extends T> factory;
+	
+	private final Consumer<? super T> reset;
+	
+	private final int maxIdlePerThread;
+	
+	private final int maxSharedIdle;
+	
+	private final ThreadLocal<ArrayStack<T>> local;
+	
+	private final ArrayStack<T> shared;
+	
+	private final ReentrantLock sharedLock = new ReentrantLock();
+	
+	// =========================================================================
+	
+	public ObjectPool(Supplier<? extends T> factory)
+	{
+		this(factory, null);
+	}
+	
+	public ObjectPool(Supplier<? extends T> factory, Consumer<? super T> reset)
+	{
+		this(factory, reset, DEFAULT_MAX_IDLE_PER_THREAD, DEFAULT_MAX_SHARED_IDLE);
+	}
+	
+	/**
+	 * @param factory
+	 *            Creates a new object if no idle object is available.
+	 * @param reset
+	 *            Applied to each released object before it is pooled. May be
+	 *            null.
+	 * @param maxIdlePerThread
+	 *            The maximum number of idle objects kept by each thread.
+	 * @param maxSharedIdle
+	 *            The maximum number of idle objects in the shared stack.
+	 */
+	public ObjectPool(
+	        Supplier<? extends T> factory,
+	        Consumer<? super T> reset,
+	        final int maxIdlePerThread,
+	        int maxSharedIdle)
+	{
+		if (factory == null)
+			throw new NullPointerException();
+		
+		if (maxIdlePerThread < 0 || maxSharedIdle < 0)
+			throw new FmtIllegalArgumentException(
+			        "Idle limits must not be negative: %d, %d",
+			        maxIdlePerThread,
+			        maxSharedIdle);
+		
+		this.factory = factory;
+		this.reset = reset;
+		this.maxIdlePerThread = maxIdlePerThread;
+		this.maxSharedIdle = maxSharedIdle;
+		this.shared = new ArrayStack<T>(Math.min(maxSharedIdle, 16), 1);
+		
+		this.local = new ThreadLocal<ArrayStack<T>>()
+		{
+			@Override
+			protected ArrayStack<T> initialValue()
+			{
+				return new ArrayStack<T>(Math.min(maxIdlePerThread, 16), 1);
+			}
+		};
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns an idle object or a new object if no idle object is available.
+	 */
+	public T borrow()
+	{
+		ArrayStack<T> stack = local.get();
+		if (!stack.isEmpty())
+			return stack.pop();
+		
+		if (sharedLock.tryLock())
+		{
+			try
+			{
+				if (!shared.isEmpty())
+					return shared.pop();
+			}
+			finally
+			{
+				sharedLock.unlock();
+			}
+		}
+		
+		T object = factory.get();
+		if (object == null)
+			throw new NullPointerException("Factory returned null");
+		return object;
+	}
+	
+	/**
+	 * Resets the given object and returns it to the pool. The object is
+	 * discarded if the pool is full.
+	 */
+	public void release(T object)
+	{
+		if (object == null)
+			throw new NullPointerException();
+		
+		if (reset != null)
+			reset.accept(object);
+		
+		ArrayStack<T> stack = local.get();
+		if (stack.size() < maxIdlePerThread)
+		{
+			stack.push(object);
+			return;
+		}
+		
+		if (sharedLock.tryLock())
+		{
+			try
+			{
+				if (shared.size() < maxSharedIdle)
+					shared.push(object);
+			}
+			finally
+			{
+				sharedLock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Discards the idle objects of the calling thread. Call this before a
+	 * pooled thread is returned to a thread pool it does not own.
+	 */
+	public void clearThreadLocal()
+	{
+		local.remove();
+	}
+	
+	/**
+	 * Discards the idle objects in the shared stack.
+	 */
+	public void clearShared()
+	{
+		sharedLock.lock();
+		try
+		{
+			shared.clear();
+		}
+		finally
+		{
+			sharedLock.unlock();
+		}
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns the number of idle objects of the calling thread.
+	 */
+	public int getThreadLocalIdleCount()
+	{
+		return local.get().size();
+	}
+	
+	public int getSharedIdleCount()
+	{
+		sharedLock.lock();
+		try
+		{
+			return shared.size();
+		}
+		finally
+		{
+			sharedLock.unlock();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A volatile long counter which is padded so that it occupies a cache line of
+ * its own. This prevents false sharing between counters that are updated by
+ * different threads (e.g. the head and tail of a ring buffer).
+ * 
+ * The padding is split across superclasses because the JVM does not reorder
+ * fields across class boundaries.
+ */
+final class PaddedSequence
+        extends
+            PaddedSequenceValue
+{
+	@SuppressWarnings("unused")
+	private long p9, p10, p11, p12, p13, p14, p15;
+	
+	private static final AtomicLongFieldUpdater<PaddedSequenceValue> UPDATER =
+			AtomicLongFieldUpdater.newUpdater(PaddedSequenceValue.class, "value");
+	
+	// =========================================================================
+	
+	public PaddedSequence(long initialValue)
+	{
+		this.value = initialValue;
+	}
+	
+	public long get()
+	{
+		return value;
+	}
+	
+	public void set(long value)
+	{
+		this.value = value;
+	}
+	
+	/**
+	 * Ordered store: the write is not immediately visible to other threads,
+	 * however, it is not reordered with preceding writes.
+	 */
+	public void lazySet(long value)
+	{
+		UPDATER.lazySet(this, value);
+	}
+	
+	public boolean compareAndSet(long expect, long update)
+	{
+		return UPDATER.compareAndSet(this, expect, update);
+	}
+	
+	public long getAndIncrement()
+	{
+		return UPDATER.getAndIncrement(this);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return Long.toString(value);
+	}
+}
+
+abstract class PaddedSequenceLhs
+{
+	@SuppressWarnings("unused")
+	private long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class PaddedSequenceValue
+        extends
+            PaddedSequenceLhs
+{
+	protected volatile long value;
+}
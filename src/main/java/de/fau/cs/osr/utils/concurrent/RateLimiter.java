@@ -0,0 +1,269 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+import de.fau.cs.osr.utils.Ticker;
+import de.fau.cs.osr.utils.Tickers;
+
+/**
+ * A token-bucket rate limiter.
+ * 
+ * Permits are issued at a fixed rate. Up to burst permits that were not
+ * used accumulate and can be acquired at once; a new limiter starts with a
+ * full bucket. The state is a single time stamp, the time at which the
+ * bucket will be full again, which is updated with compare-and-set. No locks
+ * are taken and callers that have to wait sleep instead of spinning.
+ * 
+ * The time per permit is rounded to whole nanoseconds. To keep the rounding
+ * error below 0.05%, the rate is limited to one million permits per second;
+ * higher rates (e.g. bytes per second) have to be expressed in coarser
+ * permits (e.g. kilobytes).
+ * 
+ * Time is read from a Ticker, which must be monotonic (e.g.
+ * {@link Tickers#system()}). This class is thread-safe.
+ */
+public class RateLimiter
+{
+	/**
+	 * The longest time that permits may cost, about 73 years. Keeps sums of
+	 * time stamps and costs from overflowing.
+	 */
+	private static final long MAX_NANOS = Long.MAX_VALUE >> 2;
+	
+	/** The highest rate at which rounding the interval is still accurate. */
+	public static final double MAX_RATE = 1e6;
+	
+	private final Ticker ticker;
+	
+	private final double permitsPerSecond;
+	
+	private final int burst;
+	
+	/** Nanoseconds per permit. */
+	private final long interval;
+	
+	/** Nanoseconds it takes to fill an empty bucket. */
+	private final long burstNanos;
+	
+	/**
+	 * The time stamp in nanoseconds at which all issued permits are paid for,
+	 * i.e. at which the bucket is full again.
+	 */
+	private final AtomicLong full;
+	
+	// =========================================================================
+	
+	/**
+	 * Creates a limiter that allows bursts of up to one second worth of
+	 * permits.
+	 */
+	public RateLimiter(double permitsPerSecond)
+	{
+		this(permitsPerSecond, (int) Math.max(1, Math.min(Integer.MAX_VALUE, permitsPerSecond)));
+	}
+	
+	public RateLimiter(double permitsPerSecond, int burst)
+	{
+		this(permitsPerSecond, burst, Tickers.system());
+	}
+	
+	/**
+	 * @param permitsPerSecond
+	 *            The rate at which permits are issued. Must be positive and
+	 *            at most MAX_RATE.
+	 * @param burst
+	 *            The maximum number of unused permits that accumulate. Filling
+	 *            the bucket must take less than about 70 years.
+	 * @param ticker
+	 *            A monotonic ticker.
+	 */
+	public RateLimiter(double permitsPerSecond, int burst, Ticker ticker)
+	{
+		if (!(permitsPerSecond > 0. && permitsPerSecond <= MAX_RATE))
+			throw new FmtIllegalArgumentException(
+			        "Rate must be in (0, %.0f] permits per second: %f", MAX_RATE, permitsPerSecond);
+		if (burst < 1)
+			throw new FmtIllegalArgumentException(
+			        "Burst must be positive: %d", burst);
+		
+		this.ticker = ticker;
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = burst;
+		this.interval = Math.round(1e9 / permitsPerSecond);
+		if (interval > MAX_NANOS / burst)
+			throw new FmtIllegalArgumentException(
+			        "Filling a burst of %d permits at %f permits per second takes too long",
+			        burst, permitsPerSecond);
+		this.burstNanos = interval * burst;
+		this.full = new AtomicLong(now());
+	}
+	
+	// =========================================================================
+	
+	public double getRate()
+	{
+		return permitsPerSecond;
+	}
+	
+	public int getBurst()
+	{
+		return burst;
+	}
+	
+	public Ticker getTicker()
+	{
+		return ticker;
+	}
+	
+	// =========================================================================
+	
+	public boolean tryAcquire()
+	{
+		return tryAcquire(1);
+	}
+	
+	/**
+	 * Acquires the given number of permits if they are available right away.
+	 * 
+	 * @return True if the permits were acquired.
+	 */
+	public boolean tryAcquire(int permits)
+	{
+		long cost = cost(permits);
+		if (permits > burst)
+			throw new FmtIllegalArgumentException(
+			        "Cannot acquire more than %d permits at once: %d", burst, permits);
+		
+		while (true)
+		{
+			long now = now();
+			long current = full.get();
+			long next = Math.max(current, now) + cost;
+			if (next - now > burstNanos)
+				return false;
+			if (full.compareAndSet(current, next))
+				return true;
+		}
+	}
+	
+	/**
+	 * Acquires the given number of permits if they become available within
+	 * the given timeout, sleeping until they do. Gives up immediately if the
+	 * permits will not be available in time.
+	 * 
+	 * @return True if the permits were acquired.
+	 */
+	public boolean tryAcquire(int permits, long timeout, TimeUnit unit)
+	        throws InterruptedException
+	{
+		long cost = cost(permits);
+		
+		long maxWait = Math.max(0, unit.toNanos(timeout));
+		while (true)
+		{
+			long now = now();
+			long current = full.get();
+			long next = Math.max(current, now) + cost;
+			long wait = next - burstNanos - now;
+			if (wait > maxWait)
+				return false;
+			if (full.compareAndSet(current, next))
+			{
+				sleep(wait);
+				return true;
+			}
+		}
+	}
+	
+	public long acquire() throws InterruptedException
+	{
+		return acquire(1);
+	}
+	
+	/**
+	 * Acquires the given number of permits, sleeping until they are available.
+	 * More permits than the burst size can be acquired at once; the caller
+	 * then waits until they have all been issued.
+	 * 
+	 * The permits are reserved before the caller goes to sleep. If the caller
+	 * is interrupted, they are lost.
+	 * 
+	 * @return The time spent waiting in nanoseconds.
+	 */
+	public long acquire(int permits) throws InterruptedException
+	{
+		long cost = cost(permits);
+		
+		while (true)
+		{
+			long now = now();
+			long current = full.get();
+			long next = Math.max(current, now) + cost;
+			if (full.compareAndSet(current, next))
+			{
+				long wait = next - burstNanos - now;
+				sleep(wait);
+				return Math.max(0, wait);
+			}
+		}
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public String toString()
+	{
+		return String.format(
+		        "RateLimiter[rate=%.3f/s, burst=%d]",
+		        permitsPerSecond,
+		        burst);
+	}
+	
+	// =========================================================================
+	
+	private long now()
+	{
+		return ticker.getUnit().toNanos(ticker.read());
+	}
+	
+	/**
+	 * Returns the time it takes to issue the given number of permits.
+	 */
+	private long cost(int permits)
+	{
+		if (permits < 1)
+			throw new FmtIllegalArgumentException(
+			        "Number of permits must be positive: %d", permits);
+		if (interval > MAX_NANOS / permits)
+			throw new FmtIllegalArgumentException(
+			        "Issuing %d permits takes too long", permits);
+		return interval * permits;
+	}
+	
+	private static void sleep(long nanos) throws InterruptedException
+	{
+		if (nanos > 0)
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		else if (Thread.interrupted())
+			throw new InterruptedException();
+	}
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.function.Consumer;
+
+/**
+ * A lock-free ring buffer for exactly one producer thread and one consumer
+ * thread.
+ * 
+ * Each side publishes its position with an ordered store and caches the last
+ * position it read from the other side, so that the shared counters are only
+ * read when the cached value suggests the buffer is full (respectively
+ * empty). The caches are private to one thread and therefore plain fields;
+ * they are padded so that the producer's and the consumer's cache do not
+ * share a cache line.
+ */
+public final class SpscRingBuffer<T>
+        extends
+            ConcurrentRingBuffer<T>
+{
+	private final Object[] buffer;
+	
+	/** Next position to write, written by the producer only. */
+	private final PaddedSequence tail = new PaddedSequence(0);
+	
+	/** Next position to read, written by the consumer only. */
+	private final PaddedSequence head = new PaddedSequence(0);
+	
+	/** The producer's view of head. Only accessed by the producer. */
+	private final Cache headCache = new Cache();
+	
+	/** The consumer's view of tail. Only accessed by the consumer. */
+	private final Cache tailCache = new Cache();
+	
+	// =========================================================================
+	
+	public SpscRingBuffer(int capacity)
+	{
+		this(capacity, WaitStrategies.defaultStrategy());
+	}
+	
+	public SpscRingBuffer(int capacity, WaitStrategy waitStrategy)
+	{
+		super(capacity, waitStrategy);
+		this.buffer = new Object[this.capacity];
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Must only be called by the producer thread.
+	 */
+	@Override
+	public boolean offer(T x)
+	{
+		checkNotNull(x);
+		
+		long t = tail.get();
+		long wrapPoint = t - capacity;
+		if (headCache.value <= wrapPoint)
+		{
+			long h = head.get();
+			headCache.value = h;
+			if (h <= wrapPoint)
+				return false;
+		}
+		
+		buffer[(int) t & mask] = x;
+		tail.lazySet(t + 1);
+		return true;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public T poll()
+	{
+		long h = head.get();
+		if (h >= tailCache.value)
+		{
+			long t = tail.get();
+			tailCache.value = t;
+			if (h >= t)
+				return null;
+		}
+		
+		int index = (int) h & mask;
+		T x = (T) buffer[index];
+		buffer[index] = null;
+		head.lazySet(h + 1);
+		return x;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public int drain(Consumer<? super T> consumer, int limit)
+	{
+		long h = head.get();
+		long t = tail.get();
+		tailCache.value = t;
+		
+		int n = (int) Math.min(t - h, limit);
+		for (int i = 0; i < n; ++i)
+		{
+			int index = (int) (h + i) & mask;
+			T x = (T) buffer[index];
+			buffer[index] = null;
+			consumer.accept(x);
+		}
+		
+		// Publish the freed slots all at once
+		if (n > 0)
+			head.lazySet(h + n);
+		return n;
+	}
+	
+	@Override
+	public int size()
+	{
+		long h = head.get();
+		long t = tail.get();
+		return (int) Math.max(0, Math.min(t - h, capacity));
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * A plain long padded like PaddedSequence.
+	 */
+	private static final class Cache
+	        extends
+	            CacheValue
+	{
+		@SuppressWarnings("unused")
+		private long p9, p10, p11, p12, p13, p14, p15;
+	}
+	
+	private static abstract class CacheValue
+	        extends
+	            PaddedSequenceLhs
+	{
+		long value;
+	}
+}
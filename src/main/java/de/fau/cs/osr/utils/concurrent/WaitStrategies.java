@@ -0,0 +1,120 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Predefined wait strategies.
+ * 
+ * Busy spinning gives the lowest latency but burns a CPU core for each waiting
+ * thread. Yielding is a compromise for platform threads. Parking releases the
+ * CPU and does not pin virtual threads to their carrier; it should be used
+ * whenever waiting threads might be virtual threads.
+ */
+public final class WaitStrategies
+{
+	/**
+	 * Spin without giving up the CPU. Thread.onSpinWait() tells the processor
+	 * that the thread is spinning.
+	 */
+	public static final WaitStrategy BUSY_SPIN = new WaitStrategy()
+	{
+		@Override
+		public void idle(int counter)
+		{
+			Thread.onSpinWait();
+		}
+	};
+	
+	/**
+	 * Call Thread.yield() between polls.
+	 */
+	public static final WaitStrategy YIELD = new WaitStrategy()
+	{
+		@Override
+		public void idle(int counter)
+		{
+			Thread.yield();
+		}
+	};
+	
+	// =========================================================================
+	
+	/**
+	 * Park the thread for the given time between polls.
+	 */
+	public static WaitStrategy park(final long parkNanos)
+	{
+		if (parkNanos <= 0)
+			throw new IllegalArgumentException("parkNanos must be positive");
+		
+		return new WaitStrategy()
+		{
+			@Override
+			public void idle(int counter)
+			{
+				LockSupport.parkNanos(parkNanos);
+			}
+		};
+	}
+	
+	/**
+	 * Spin for spinTries polls, then yield for yieldTries polls, then park for
+	 * parkNanos between polls.
+	 */
+	public static WaitStrategy backoff(
+			final int spinTries,
+			final int yieldTries,
+			final long parkNanos)
+	{
+		if (spinTries < 0 || yieldTries < 0 || parkNanos <= 0)
+			throw new IllegalArgumentException();
+		
+		return new WaitStrategy()
+		{
+			@Override
+			public void idle(int counter)
+			{
+				if (counter < spinTries)
+					Thread.onSpinWait();
+				else if (counter < spinTries + yieldTries)
+					Thread.yield();
+				else
+					LockSupport.parkNanos(parkNanos);
+			}
+		};
+	}
+	
+	/**
+	 * A strategy that suits most use cases, including virtual threads: spin
+	 * briefly, yield a few times, then park for 50 microseconds.
+	 */
+	public static WaitStrategy defaultStrategy()
+	{
+		return DEFAULT;
+	}
+	
+	// =========================================================================
+	
+	private static final WaitStrategy DEFAULT = backoff(100, 10, 50000);
+	
+	private WaitStrategies()
+	{
+	}
+}
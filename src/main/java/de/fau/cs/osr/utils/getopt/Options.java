@@ -22,13 +22,12 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
 
 import joptsimple.OptionParser;
 import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+import de.fau.cs.osr.utils.TypeDispatchMap;
 
 public final class Options
 {
@@ -36,8 +35,8 @@ public final class Options
 	
 	private final Configuration config = new Configuration();
 	
-	private final Map<Class<?>, Converter<?>> converters =
-			new HashMap<Class<?>, Converter<?>>();
+	private final TypeDispatchMap<Converter<?>> converters =
+			new TypeDispatchMap<Converter<?>>();
 	
 	private boolean quiet = false;
 	
@@ -370,6 +369,15 @@ public final class Options
 	
 	// =========================================================================
 	
+	/**
+	 * Register a converter for the given type. The converter is also used for
+	 * subtypes of the given type unless a more specific converter is
+	 * registered. When used for a subtype, the converter must return
+	 * instances of that subtype, otherwise the conversion fails.
+	 * 
+	 * @return The converter previously registered for exactly this type or
+	 *         null.
+	 */
 	@SuppressWarnings("unchecked")
 	public <T> Converter<T> addConverter(Class<T> clazz, Converter<T> converter)
 	{
@@ -596,6 +604,13 @@ public final class Options
 		if (converter == null)
 			throw new UnknownConversionException(option, clazz);
 		
-		return converter.convert(option, value);
+		T result = converter.convert(option, value);
+		
+		// A converter registered for a supertype might not produce the
+		// requested subtype.
+		if (result != null && !clazz.isPrimitive() && !clazz.isInstance(result))
+			throw new FailedConversionException(option, value, clazz);
+		
+		return result;
 	}
 }
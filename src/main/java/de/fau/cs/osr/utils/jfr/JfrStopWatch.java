@@ -0,0 +1,173 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.jfr;
+
+import de.fau.cs.osr.utils.StopWatch;
+
+/**
+ * A monotonic StopWatch that also emits a Flight Recorder TimingEvent for
+ * each period it was running, i.e. from start(), restart() or resume() until
+ * stop() or suspend().
+ * 
+ * If the event is disabled or no recording is running, the watch adds only
+ * the cost of checking whether the event is enabled. To check this, the
+ * watch creates one event when it is started for the first time and keeps
+ * it as a probe; further events are only created while the event is enabled.
+ */
+public class JfrStopWatch
+        extends
+            StopWatch
+{
+	private final String name;
+	
+	private String context;
+	
+	private TimingEvent event;
+	
+	/** An event of the type created by createEvent(), never committed. */
+	private TimingEvent probe;
+	
+	// =========================================================================
+	
+	/**
+	 * @param name
+	 *            The name recorded in the events, i.e. what is timed.
+	 */
+	public JfrStopWatch(String name)
+	{
+		this(name, 0);
+	}
+	
+	public JfrStopWatch(String name, int maxSplits)
+	{
+		super(true, maxSplits);
+		this.name = name;
+	}
+	
+	// =========================================================================
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	public String getContext()
+	{
+		return context;
+	}
+	
+	/**
+	 * Sets the context recorded in subsequent events, e.g. the ID of the
+	 * document that is processed.
+	 */
+	public JfrStopWatch setContext(String context)
+	{
+		this.context = context;
+		return this;
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public StopWatch restart()
+	{
+		commit();
+		super.restart();
+		begin();
+		return this;
+	}
+	
+	@Override
+	public StopWatch stop()
+	{
+		if (isRunning())
+		{
+			super.stop();
+			commit();
+		}
+		return this;
+	}
+	
+	@Override
+	public StopWatch resume()
+	{
+		if (!isRunning())
+		{
+			super.resume();
+			begin();
+		}
+		return this;
+	}
+	
+	@Override
+	public StopWatch reset()
+	{
+		event = null;
+		return super.reset();
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Creates the event for the next running period. Override to emit a
+	 * subclass of TimingEvent with additional fields.
+	 */
+	protected TimingEvent createEvent()
+	{
+		return new TimingEvent();
+	}
+	
+	/**
+	 * Called before the event of a running period is committed. Override to
+	 * fill in additional fields.
+	 */
+	protected void beforeCommit(TimingEvent event)
+	{
+	}
+	
+	// =========================================================================
+	
+	private void begin()
+	{
+		if (probe == null)
+			probe = createEvent();
+		if (!probe.isEnabled())
+			return;
+		
+		TimingEvent e = createEvent();
+		e.begin();
+		event = e;
+	}
+	
+	private void commit()
+	{
+		TimingEvent e = event;
+		if (e == null)
+			return;
+		
+		event = null;
+		e.end();
+		if (e.shouldCommit())
+		{
+			e.name = name;
+			e.context = context;
+			beforeCommit(e);
+			e.commit();
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event emitted by a Profiler for each scope that is left.
+ * 
+ * The event is enabled by default and can be configured in JFR settings under
+ * the name {@value #NAME}.
+ */
+@Name(ScopeEvent.NAME)
+@Label("Profiler Scope")
+@Category({ "OSR Utils", "Timing" })
+@Description("The time spent in a profiler scope")
+@StackTrace(false)
+public class ScopeEvent
+        extends
+            Event
+{
+	public static final String NAME = "de.fau.cs.osr.utils.ProfilerScope";
+	
+	@Label("Name")
+	public String name;
+	
+	@Label("Path")
+	@Description("The names of the enclosing scopes and the scope, separated by '/'")
+	public String path;
+}
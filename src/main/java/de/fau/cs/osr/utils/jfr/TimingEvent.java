@@ -0,0 +1,53 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event emitted by a JfrStopWatch for each period the watch
+ * was running.
+ * 
+ * The event is enabled by default and can be configured in JFR settings under
+ * the name {@value #NAME}. Subclass this event to record additional fields
+ * and create it in JfrStopWatch.createEvent().
+ */
+@Name(TimingEvent.NAME)
+@Label("Timing")
+@Category({ "OSR Utils", "Timing" })
+@Description("The time measured by a stop watch")
+@StackTrace(false)
+public class TimingEvent
+        extends
+            Event
+{
+	public static final String NAME = "de.fau.cs.osr.utils.Timing";
+	
+	@Label("Name")
+	@Description("What was timed")
+	public String name;
+	
+	@Label("Context")
+	@Description("The item that was processed, e.g. a document ID")
+	public String context;
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter that can be incremented by many threads without contention.
+ */
+public final class Counter
+        implements
+            Metric,
+            CounterMBean
+{
+	private final String name;
+	
+	private final LongAdder count = new LongAdder();
+	
+	// =========================================================================
+	
+	Counter(String name)
+	{
+		this.name = name;
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+	
+	public void inc()
+	{
+		count.increment();
+	}
+	
+	public void inc(long n)
+	{
+		count.add(n);
+	}
+	
+	public void dec()
+	{
+		count.decrement();
+	}
+	
+	@Override
+	public long getCount()
+	{
+		return count.sum();
+	}
+	
+	/**
+	 * @return The count as a Long.
+	 */
+	@Override
+	public Object snapshot()
+	{
+		return count.sum();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return name + "=" + count.sum();
+	}
+}
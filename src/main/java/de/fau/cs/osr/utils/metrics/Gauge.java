@@ -0,0 +1,74 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.metrics;
+
+import java.util.function.Supplier;
+
+/**
+ * A metric whose value is read from a supplier whenever it is queried, e.g.
+ * the size of a queue.
+ */
+public final class Gauge
+        implements
+            Metric,
+            GaugeMBean
+{
+	private final String name;
+	
+	private final Supplier<? extends Number> supplier;
+	
+	// =========================================================================
+	
+	Gauge(String name, Supplier<? extends Number> supplier)
+	{
+		if (supplier == null)
+			throw new NullPointerException();
+		
+		this.name = name;
+		this.supplier = supplier;
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+	
+	@Override
+	public Number getValue()
+	{
+		return supplier.get();
+	}
+	
+	/**
+	 * @return The value returned by the supplier.
+	 */
+	@Override
+	public Object snapshot()
+	{
+		return supplier.get();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return name + "=" + getValue();
+	}
+}
@@ -0,0 +1,261 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+import de.fau.cs.osr.utils.FmtRuntimeException;
+
+/**
+ * A registry of named counters, gauges, timers and sampled timers.
+ * 
+ * If the registry is created with a JMX domain, each metric is registered as
+ * an MBean with the name "&lt;domain&gt;:type=&lt;class&gt;,name=&lt;name&gt;"
+ * in the platform MBean server, so that monitoring tools can read it.
+ * snapshot() reads all metrics in-process.
+ * 
+ * Metrics are created on first use and live until they are removed or the
+ * registry is closed. This class is thread-safe.
+ */
+public class MetricRegistry
+        implements
+            AutoCloseable
+{
+	private final String jmxDomain;
+	
+	private final MBeanServer server;
+	
+	private final ConcurrentHashMap<String, Metric> metrics =
+	        new ConcurrentHashMap<String, Metric>();
+	
+	// =========================================================================
+	
+	/**
+	 * Creates a registry that does not expose its metrics over JMX.
+	 */
+	public MetricRegistry()
+	{
+		this(null);
+	}
+	
+	/**
+	 * @param jmxDomain
+	 *            The domain under which metrics are registered in the
+	 *            platform MBean server or null to not register them.
+	 */
+	public MetricRegistry(String jmxDomain)
+	{
+		this.jmxDomain = jmxDomain;
+		this.server = (jmxDomain != null) ?
+		        ManagementFactory.getPlatformMBeanServer() :
+		        null;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns the counter with the given name, creating it if necessary.
+	 */
+	public Counter counter(String name)
+	{
+		Metric m = metrics.get(name);
+		if (m == null)
+			m = register(new Counter(name));
+		return cast(m, Counter.class);
+	}
+	
+	/**
+	 * Registers a gauge with the given name. If a gauge with this name already
+	 * exists, the existing gauge is returned and the given supplier is
+	 * ignored.
+	 */
+	public Gauge gauge(String name, Supplier<? extends Number> supplier)
+	{
+		Metric m = metrics.get(name);
+		if (m == null)
+			m = register(new Gauge(name, supplier));
+		return cast(m, Gauge.class);
+	}
+	
+	/**
+	 * Returns the timer with the given name, creating it if necessary.
+	 */
+	public Timer timer(String name)
+	{
+		Metric m = metrics.get(name);
+		if (m == null)
+			m = register(new Timer(name));
+		return cast(m, Timer.class);
+	}
+	
+	/**
+	 * Returns the sampled timer with the given name, creating it with a fixed
+	 * sample interval if necessary.
+	 */
+	public SampledTimer sampledTimer(String name, int sampleInterval)
+	{
+		Metric m = metrics.get(name);
+		if (m == null)
+			m = register(SampledTimer.fixed(name, sampleInterval));
+		return cast(m, SampledTimer.class);
+	}
+	
+	/**
+	 * Returns the sampled timer with the given name, creating it with an
+	 * adaptive sample interval if necessary.
+	 * 
+	 * @param samplesPerSecond
+	 *            The number of samples each thread should take per second.
+	 */
+	public SampledTimer adaptiveSampledTimer(String name, int samplesPerSecond)
+	{
+		Metric m = metrics.get(name);
+		if (m == null)
+			m = register(SampledTimer.adaptive(name, samplesPerSecond));
+		return cast(m, SampledTimer.class);
+	}
+	
+	/**
+	 * Removes the metric with the given name and unregisters its MBean.
+	 * 
+	 * @return True if a metric was removed.
+	 */
+	public boolean remove(String name)
+	{
+		Metric m = metrics.remove(name);
+		if (m == null)
+			return false;
+		unregisterMBean(m);
+		return true;
+	}
+	
+	public Map<String, Metric> getMetrics()
+	{
+		return new TreeMap<String, Metric>(metrics);
+	}
+	
+	/**
+	 * Reads all metrics.
+	 * 
+	 * @return The value of each metric by name, sorted by name. Counters map
+	 *         to a Long, gauges to the Number returned by their supplier and
+	 *         (sampled) timers to a LatencyHistogram.Snapshot of the recorded
+	 *         durations in nanoseconds.
+	 */
+	public SortedMap<String, Object> snapshot()
+	{
+		SortedMap<String, Object> snapshot = new TreeMap<String, Object>();
+		for (Metric m : metrics.values())
+			snapshot.put(m.getName(), m.snapshot());
+		return snapshot;
+	}
+	
+	/**
+	 * Removes all metrics and unregisters their MBeans.
+	 */
+	@Override
+	public void close()
+	{
+		for (String name : metrics.keySet())
+			remove(name);
+	}
+	
+	// =========================================================================
+	
+	private Metric register(Metric metric)
+	{
+		Metric existing = metrics.putIfAbsent(metric.getName(), metric);
+		if (existing != null)
+			return existing;
+		
+		try
+		{
+			registerMBean(metric);
+		}
+		catch (RuntimeException e)
+		{
+			metrics.remove(metric.getName(), metric);
+			throw e;
+		}
+		return metric;
+	}
+	
+	private static <T extends Metric> T cast(Metric m, Class<T> type)
+	{
+		if (!type.isInstance(m))
+			throw new FmtIllegalArgumentException(
+			        "Metric `%s' is a %s, not a %s",
+			        m.getName(),
+			        m.getClass().getSimpleName(),
+			        type.getSimpleName());
+		return type.cast(m);
+	}
+	
+	private ObjectName objectName(Metric metric) throws JMException
+	{
+		return new ObjectName(String.format(
+		        "%s:type=%s,name=%s",
+		        jmxDomain,
+		        metric.getClass().getSimpleName(),
+		        ObjectName.quote(metric.getName())));
+	}
+	
+	private void registerMBean(Metric metric)
+	{
+		if (server == null)
+			return;
+		
+		try
+		{
+			server.registerMBean(metric, objectName(metric));
+		}
+		catch (JMException e)
+		{
+			throw new FmtRuntimeException(e,
+			        "Cannot register metric `%s' with JMX", metric.getName());
+		}
+	}
+	
+	private void unregisterMBean(Metric metric)
+	{
+		if (server == null)
+			return;
+		
+		try
+		{
+			ObjectName name = objectName(metric);
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+		}
+		catch (JMException e)
+		{
+			throw new FmtRuntimeException(e,
+			        "Cannot unregister metric `%s' from JMX", metric.getName());
+		}
+	}
+}
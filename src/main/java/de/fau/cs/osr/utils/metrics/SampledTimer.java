@@ -0,0 +1,272 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+import de.fau.cs.osr.utils.LatencyHistogram;
+
+/**
+ * A timer for very frequently called code that only measures one in N
+ * invocations, so that the cost of reading the clock is only paid for the
+ * sampled invocations.
+ * 
+ * <pre>
+ * long start = timer.start();
+ * ...
+ * timer.stop(start);
+ * </pre>
+ * 
+ * Whether an invocation is sampled is decided by a thread-local countdown.
+ * Each sample is recorded with a weight of N, so that the counts of the
+ * histogram estimate the number of invocations. With a fixed interval, N is
+ * constant. With an adaptive interval, each thread doubles or halves its N
+ * so that it takes roughly the given number of samples per second, however
+ * often the code is called.
+ * 
+ * start() and stop() do not allocate. A thread must not nest measurements
+ * with the same timer.
+ */
+public final class SampledTimer
+        implements
+            Metric,
+            SampledTimerMBean
+{
+	private static final int MAX_INTERVAL = 1 << 20;
+	
+	// =========================================================================
+	
+	private final String name;
+	
+	private final int initialInterval;
+	
+	/** Target time between two samples of a thread or 0 if not adaptive. */
+	private final long targetNanosBetweenSamples;
+	
+	private final LatencyHistogram histogram = Timer.newHistogram();
+	
+	private final SnapshotCache jmxSnapshot = new SnapshotCache(histogram);
+	
+	private final LongAdder samples = new LongAdder();
+	
+	private final ThreadLocal<Sampler> samplers = new ThreadLocal<Sampler>()
+	{
+		@Override
+		protected Sampler initialValue()
+		{
+			return new Sampler(initialInterval);
+		}
+	};
+	
+	// =========================================================================
+	
+	private SampledTimer(String name, int initialInterval, long targetNanosBetweenSamples)
+	{
+		this.name = name;
+		this.initialInterval = initialInterval;
+		this.targetNanosBetweenSamples = targetNanosBetweenSamples;
+	}
+	
+	/**
+	 * Creates a timer that samples every sampleInterval-th invocation of each
+	 * thread.
+	 */
+	static SampledTimer fixed(String name, int sampleInterval)
+	{
+		if (sampleInterval < 1 || sampleInterval > MAX_INTERVAL)
+			throw new FmtIllegalArgumentException(
+			        "Sample interval must be in [1, %d]: %d", MAX_INTERVAL, sampleInterval);
+		
+		return new SampledTimer(name, sampleInterval, 0);
+	}
+	
+	/**
+	 * Creates a timer that adapts its sample interval so that each thread
+	 * takes about the given number of samples per second.
+	 */
+	static SampledTimer adaptive(String name, int samplesPerSecond)
+	{
+		if (samplesPerSecond < 1 || samplesPerSecond > 1000000)
+			throw new FmtIllegalArgumentException(
+			        "Samples per second must be in [1, 1000000]: %d", samplesPerSecond);
+		
+		return new SampledTimer(name, 1, TimeUnit.SECONDS.toNanos(1) / samplesPerSecond);
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+	
+	public boolean isAdaptive()
+	{
+		return targetNanosBetweenSamples > 0;
+	}
+	
+	/**
+	 * Returns the current sample interval of the calling thread.
+	 */
+	public int getSampleInterval()
+	{
+		return samplers.get().interval;
+	}
+	
+	/**
+	 * Starts a measurement.
+	 * 
+	 * @return The start time in nanoseconds if this invocation is sampled, -1
+	 *         otherwise. Must be passed to stop().
+	 */
+	public long start()
+	{
+		Sampler s = samplers.get();
+		if (--s.countdown > 0)
+			return -1;
+		
+		long now = System.nanoTime();
+		s.weight = s.interval;
+		if (targetNanosBetweenSamples > 0)
+			adapt(s, now);
+		s.countdown = s.interval;
+		return now;
+	}
+	
+	/**
+	 * Ends a measurement.
+	 * 
+	 * @param start
+	 *            The value returned by start().
+	 */
+	public void stop(long start)
+	{
+		if (start == -1)
+			return;
+		
+		long elapsed = System.nanoTime() - start;
+		histogram.record(Math.max(0, elapsed), samplers.get().weight);
+		samples.increment();
+	}
+	
+	public void reset()
+	{
+		histogram.reset();
+		jmxSnapshot.invalidate();
+		samples.reset();
+	}
+	
+	/**
+	 * Returns the recorded durations in nanoseconds. The counts are
+	 * estimates of the number of invocations.
+	 */
+	@Override
+	public LatencyHistogram.Snapshot snapshot()
+	{
+		return histogram.snapshot();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return name + ": " + histogram.snapshot();
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public long getSampleCount()
+	{
+		return samples.sum();
+	}
+	
+	@Override
+	public long getCount()
+	{
+		return jmxSnapshot.get().getCount();
+	}
+	
+	@Override
+	public double getMeanMillis()
+	{
+		return jmxSnapshot.get().getMean() / 1e6;
+	}
+	
+	@Override
+	public double getMaxMillis()
+	{
+		return jmxSnapshot.get().getMax() / 1e6;
+	}
+	
+	@Override
+	public double get50thPercentileMillis()
+	{
+		return jmxSnapshot.get().getPercentile(50) / 1e6;
+	}
+	
+	@Override
+	public double get99thPercentileMillis()
+	{
+		return jmxSnapshot.get().getPercentile(99) / 1e6;
+	}
+	
+	@Override
+	public double get999thPercentileMillis()
+	{
+		return jmxSnapshot.get().getPercentile(99.9) / 1e6;
+	}
+	
+	// =========================================================================
+	
+	private void adapt(Sampler s, long now)
+	{
+		long last = s.lastSampleTime;
+		s.lastSampleTime = now;
+		if (last == 0)
+			return;
+		
+		long elapsed = now - last;
+		if (elapsed < targetNanosBetweenSamples / 2 && s.interval < MAX_INTERVAL)
+			s.interval <<= 1;
+		else if (elapsed > targetNanosBetweenSamples * 2 && s.interval > 1)
+			s.interval >>>= 1;
+	}
+	
+	// =========================================================================
+	
+	private static final class Sampler
+	{
+		int interval;
+		
+		int countdown;
+		
+		/** The number of invocations the current sample represents. */
+		long weight;
+		
+		long lastSampleTime;
+		
+		Sampler(int interval)
+		{
+			this.interval = interval;
+			this.countdown = interval;
+		}
+	}
+}
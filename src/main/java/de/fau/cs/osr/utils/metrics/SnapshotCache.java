@@ -0,0 +1,80 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import de.fau.cs.osr.utils.LatencyHistogram;
+
+/**
+ * Caches a snapshot of a histogram for the JMX attributes of a timer.
+ * 
+ * A JMX client reads each attribute with a separate call. Taking a snapshot
+ * sums all buckets of all stripes, so the attributes read in one poll share
+ * a snapshot that is at most MAX_AGE old. This also makes the attributes of
+ * one poll consistent with each other.
+ */
+final class SnapshotCache
+{
+	static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(1);
+	
+	private final LatencyHistogram histogram;
+	
+	private volatile Entry cached;
+	
+	// =========================================================================
+	
+	SnapshotCache(LatencyHistogram histogram)
+	{
+		this.histogram = histogram;
+	}
+	
+	// =========================================================================
+	
+	LatencyHistogram.Snapshot get()
+	{
+		long now = System.nanoTime();
+		Entry e = cached;
+		if (e == null || now - e.takenAt > MAX_AGE_NANOS)
+		{
+			e = new Entry(histogram.snapshot(), now);
+			cached = e;
+		}
+		return e.snapshot;
+	}
+	
+	void invalidate()
+	{
+		cached = null;
+	}
+	
+	// =========================================================================
+	
+	private static final class Entry
+	{
+		final LatencyHistogram.Snapshot snapshot;
+		
+		final long takenAt;
+		
+		Entry(LatencyHistogram.Snapshot snapshot, long takenAt)
+		{
+			this.snapshot = snapshot;
+			this.takenAt = takenAt;
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import de.fau.cs.osr.utils.LatencyHistogram;
+import de.fau.cs.osr.utils.StopWatch;
+
+/**
+ * Records durations in a LatencyHistogram.
+ * 
+ * Durations can be recorded from a StopWatch, given explicitly or measured
+ * with try-with-resources:
+ * 
+ * <pre>
+ * try (Timer.Context t = timer.time())
+ * {
+ * 	...
+ * }
+ * </pre>
+ */
+public final class Timer
+        implements
+            Metric,
+            TimerMBean
+{
+	/** Durations up to one hour are recorded with full precision. */
+	private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+	
+	private static final int SIGNIFICANT_DIGITS = 2;
+	
+	private static final int STRIPES = 4;
+	
+	// =========================================================================
+	
+	private final String name;
+	
+	private final LatencyHistogram histogram = newHistogram();
+	
+	private final SnapshotCache jmxSnapshot = new SnapshotCache(histogram);
+	
+	// =========================================================================
+	
+	Timer(String name)
+	{
+		this.name = name;
+	}
+	
+	/**
+	 * Creates a histogram configured like the histogram of a timer.
+	 */
+	static LatencyHistogram newHistogram()
+	{
+		return new LatencyHistogram(
+		        HIGHEST_TRACKABLE_NANOS,
+		        SIGNIFICANT_DIGITS,
+		        STRIPES);
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+	
+	public void update(long duration, TimeUnit unit)
+	{
+		histogram.record(unit.toNanos(duration));
+	}
+	
+	/**
+	 * Records the elapsed time of the given watch.
+	 */
+	public void update(StopWatch watch)
+	{
+		histogram.record(watch);
+	}
+	
+	/**
+	 * Starts measuring a duration that is recorded when the returned context
+	 * is closed.
+	 */
+	public Context time()
+	{
+		return new Context();
+	}
+	
+	public void reset()
+	{
+		histogram.reset();
+		jmxSnapshot.invalidate();
+	}
+	
+	@Override
+	public LatencyHistogram.Snapshot snapshot()
+	{
+		return histogram.snapshot();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return name + ": " + histogram.snapshot();
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public long getCount()
+	{
+		return jmxSnapshot.get().getCount();
+	}
+	
+	@Override
+	public double getMeanMillis()
+	{
+		return jmxSnapshot.get().getMean() / 1e6;
+	}
+	
+	@Override
+	public double getMaxMillis()
+	{
+		return jmxSnapshot.get().getMax() / 1e6;
+	}
+	
+	@Override
+	public double get50thPercentileMillis()
+	{
+		return jmxSnapshot.get().getPercentile(50) / 1e6;
+	}
+	
+	@Override
+	public double get99thPercentileMillis()
+	{
+		return jmxSnapshot.get().getPercentile(99) / 1e6;
+	}
+	
+	@Override
+	public double get999thPercentileMillis()
+	{
+		return jmxSnapshot.get().getPercentile(99.9) / 1e6;
+	}
+	
+	// =========================================================================
+	
+	public final class Context
+	        implements
+	            AutoCloseable
+	{
+		private final StopWatch watch = new StopWatch(true).start();
+		
+		private Context()
+		{
+		}
+		
+		/**
+		 * Stops the measurement and records the duration. Closing a context
+		 * more than once has no further effect.
+		 */
+		@Override
+		public void close()
+		{
+			if (watch.isRunning())
+			{
+				watch.stop();
+				update(watch);
+			}
+		}
+	}
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.metrics;
+
+/**
+ * Exposes the durations recorded by a Timer. All durations are given in
+ * milliseconds. Attributes read within one second of each other are taken
+ * from the same snapshot of the timer's histogram.
+ */
+public interface TimerMBean
+{
+	public long getCount();
+	
+	public double getMeanMillis();
+	
+	public double getMaxMillis();
+	
+	public double get50thPercentileMillis();
+	
+	public double get99thPercentileMillis();
+	
+	public double get999thPercentileMillis();
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+
+/**
+ * A stack of `char' values backed by an array. Unlike an
+ * ArrayStack&lt;Character&gt; pushing a value does not box it.
+ * 
+ * When the array is full it grows by a factor of 1.5, which makes push()
+ * amortized O(1). Values are indexed from the bottom (index 0) to the top of
+ * the stack. This class is not thread-safe.
+ * 
+ * @see de.fau.cs.osr.utils.ArrayStack
+ */
+public class CharArrayStack
+{
+	private char[] stack;
+	
+	private int size = 0;
+	
+	// =========================================================================
+	
+	public CharArrayStack()
+	{
+		this(10);
+	}
+	
+	public CharArrayStack(int initialCapacity)
+	{
+		if (initialCapacity < 0)
+			throw new FmtIllegalArgumentException(
+			        "Initial capacity must not be negative: %d", initialCapacity);
+		
+		this.stack = new char[initialCapacity];
+	}
+	
+	// =========================================================================
+	
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	public int size()
+	{
+		return size;
+	}
+	
+	public int getCapacity()
+	{
+		return stack.length;
+	}
+	
+	public char peek()
+	{
+		if (size == 0)
+			throw new EmptyStackException();
+		return stack[size - 1];
+	}
+	
+	/**
+	 * Returns the value the given number of positions below the top of the
+	 * stack. peek(0) is equivalent to peek().
+	 */
+	public char peek(int depth)
+	{
+		if (depth < 0 || depth >= size)
+			throw new EmptyStackException();
+		return stack[size - 1 - depth];
+	}
+	
+	/**
+	 * Returns the value at the given index. Index 0 denotes the bottom of the
+	 * stack.
+	 */
+	public char get(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException(
+			        "Index: " + index + ", Size: " + size);
+		return stack[index];
+	}
+	
+	// =========================================================================
+	
+	public char pop()
+	{
+		if (size == 0)
+			throw new EmptyStackException();
+		return stack[--size];
+	}
+	
+	/**
+	 * Removes the top n values.
+	 */
+	public void popN(int n)
+	{
+		if (n < 0)
+			throw new IllegalArgumentException();
+		if (n > size)
+			throw new EmptyStackException();
+		size -= n;
+	}
+	
+	/**
+	 * Returns a checkpoint that rewind() can return to. The checkpoint is the
+	 * current size of the stack.
+	 */
+	public int mark()
+	{
+		return size;
+	}
+	
+	/**
+	 * Pops all values pushed since the given checkpoint was taken. This only
+	 * resets the size of the stack and takes constant time.
+	 * 
+	 * The stack is only restored to its state at the time of the checkpoint
+	 * if no value below the checkpoint was popped in the meantime.
+	 * 
+	 * @param mark
+	 *            A checkpoint previously returned by mark().
+	 */
+	public void rewind(int mark)
+	{
+		if (mark < 0 || mark > size)
+			throw new FmtIllegalArgumentException(
+			        "Invalid mark %d for stack of size %d", mark, size);
+		popN(size - mark);
+	}
+	
+	public char push(char value)
+	{
+		if (size == stack.length)
+			grow(size + 1);
+		stack[size++] = value;
+		return value;
+	}
+	
+	/**
+	 * Pushes the given values in order. The last value ends up on top of the
+	 * stack.
+	 */
+	public void pushAll(char[] values, int offset, int length)
+	{
+		if (offset < 0 || length < 0 || offset + length > values.length)
+			throw new IndexOutOfBoundsException();
+		
+		ensureCapacity(size + length);
+		System.arraycopy(values, offset, stack, size, length);
+		size += length;
+	}
+	
+	public void clear()
+	{
+		size = 0;
+	}
+	
+	// =========================================================================
+	
+	public void ensureCapacity(int minCapacity)
+	{
+		if (minCapacity > stack.length)
+			grow(minCapacity);
+	}
+	
+	/**
+	 * Shrinks the array to the size of the stack.
+	 */
+	public void trimToSize()
+	{
+		if (stack.length > size)
+			stack = Arrays.copyOf(stack, size);
+	}
+	
+	/**
+	 * Returns the values from the bottom to the top of the stack.
+	 */
+	public char[] toArray()
+	{
+		return Arrays.copyOf(stack, size);
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append('[');
+		for (int i = 0; i < size; ++i)
+		{
+			if (i > 0)
+				sb.append(", ");
+			sb.append(stack[i]);
+		}
+		sb.append(']');
+		return sb.toString();
+	}
+	
+	// =========================================================================
+	
+	private void grow(int minCapacity)
+	{
+		stack = Arrays.copyOf(stack, PrimitiveArrays.newCapacity(stack.length, minCapacity));
+	}
+}
@@ -0,0 +1,318 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+
+/**
+ * A growable list of `int' values backed by an array. Unlike an
+ * ArrayList&lt;Integer&gt; adding a value does not box it.
+ * 
+ * When the array is full it grows by a factor of 1.5. Iterators are
+ * fail-fast. This class is not thread-safe.
+ */
+public class IntArrayList
+{
+	private int[] list;
+	
+	private int size = 0;
+	
+	private int modCount = 0;
+	
+	// =========================================================================
+	
+	public IntArrayList()
+	{
+		this(10);
+	}
+	
+	public IntArrayList(int initialCapacity)
+	{
+		if (initialCapacity < 0)
+			throw new FmtIllegalArgumentException(
+			        "Initial capacity must not be negative: %d", initialCapacity);
+		
+		this.list = new int[initialCapacity];
+	}
+	
+	// =========================================================================
+	
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	public int size()
+	{
+		return size;
+	}
+	
+	public int getCapacity()
+	{
+		return list.length;
+	}
+	
+	public int get(int index)
+	{
+		checkIndex(index);
+		return list[index];
+	}
+	
+	/**
+	 * @return The value previously stored at the given index.
+	 */
+	public int set(int index, int value)
+	{
+		checkIndex(index);
+		int previous = list[index];
+		list[index] = value;
+		return previous;
+	}
+	
+	public int indexOf(int value)
+	{
+		for (int i = 0; i < size; ++i)
+		{
+			if (list[i] == value)
+				return i;
+		}
+		return -1;
+	}
+	
+	public int lastIndexOf(int value)
+	{
+		for (int i = size - 1; i >= 0; --i)
+		{
+			if (list[i] == value)
+				return i;
+		}
+		return -1;
+	}
+	
+	public boolean contains(int value)
+	{
+		return indexOf(value) >= 0;
+	}
+	
+	// =========================================================================
+	
+	public void add(int value)
+	{
+		if (size == list.length)
+			grow(size + 1);
+		list[size++] = value;
+		++modCount;
+	}
+	
+	/**
+	 * Inserts a value at the given index and shifts the subsequent values to
+	 * the right.
+	 */
+	public void add(int index, int value)
+	{
+		if (index < 0 || index > size)
+			throw new IndexOutOfBoundsException(
+			        "Index: " + index + ", Size: " + size);
+		
+		if (size == list.length)
+			grow(size + 1);
+		System.arraycopy(list, index, list, index + 1, size - index);
+		list[index] = value;
+		++size;
+		++modCount;
+	}
+	
+	public void addAll(int[] values, int offset, int length)
+	{
+		if (offset < 0 || length < 0 || offset + length > values.length)
+			throw new IndexOutOfBoundsException();
+		
+		ensureCapacity(size + length);
+		System.arraycopy(values, offset, list, size, length);
+		size += length;
+		++modCount;
+	}
+	
+	/**
+	 * Removes the value at the given index and shifts the subsequent values to
+	 * the left.
+	 * 
+	 * @return The removed value.
+	 */
+	public int removeAt(int index)
+	{
+		checkIndex(index);
+		int value = list[index];
+		System.arraycopy(list, index + 1, list, index, size - index - 1);
+		--size;
+		++modCount;
+		return value;
+	}
+	
+	/**
+	 * Removes the last value.
+	 * 
+	 * @return The removed value.
+	 */
+	public int removeLast()
+	{
+		if (size == 0)
+			throw new NoSuchElementException();
+		++modCount;
+		return list[--size];
+	}
+	
+	/**
+	 * Removes all values at an index greater than or equal to the given size.
+	 */
+	public void truncate(int newSize)
+	{
+		if (newSize < 0 || newSize > size)
+			throw new IndexOutOfBoundsException(
+			        "Size: " + newSize + ", current size: " + size);
+		size = newSize;
+		++modCount;
+	}
+	
+	public void clear()
+	{
+		size = 0;
+		++modCount;
+	}
+	
+	public void sort()
+	{
+		Arrays.sort(list, 0, size);
+		++modCount;
+	}
+	
+	// =========================================================================
+	
+	public void ensureCapacity(int minCapacity)
+	{
+		if (minCapacity > list.length)
+			grow(minCapacity);
+	}
+	
+	/**
+	 * Shrinks the array to the size of the list.
+	 */
+	public void trimToSize()
+	{
+		if (list.length > size)
+			list = Arrays.copyOf(list, size);
+	}
+	
+	public int[] toArray()
+	{
+		return Arrays.copyOf(list, size);
+	}
+	
+	public PrimitiveIterator.OfInt iterator()
+	{
+		return new PrimitiveIterator.OfInt()
+		{
+			private final int expectedModCount = modCount;
+			
+			private int i = 0;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return i < size;
+			}
+			
+			@Override
+			public int nextInt()
+			{
+				if (modCount != expectedModCount)
+					throw new ConcurrentModificationException();
+				
+				if (i >= size)
+					throw new NoSuchElementException();
+				
+				return list[i++];
+			}
+		};
+	}
+	
+	// =========================================================================
+	
+	@Override
+	public int hashCode()
+	{
+		int hash = 1;
+		for (int i = 0; i < size; ++i)
+			hash = 31 * hash + list[i];
+		return hash;
+	}
+	
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		IntArrayList other = (IntArrayList) obj;
+		if (size != other.size)
+			return false;
+		for (int i = 0; i < size; ++i)
+		{
+			if (list[i] != other.list[i])
+				return false;
+		}
+		return true;
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append('[');
+		for (int i = 0; i < size; ++i)
+		{
+			if (i > 0)
+				sb.append(", ");
+			sb.append(list[i]);
+		}
+		sb.append(']');
+		return sb.toString();
+	}
+	
+	// =========================================================================
+	
+	private void checkIndex(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException(
+			        "Index: " + index + ", Size: " + size);
+	}
+	
+	private void grow(int minCapacity)
+	{
+		list = Arrays.copyOf(list, PrimitiveArrays.newCapacity(list.length, minCapacity));
+	}
+}
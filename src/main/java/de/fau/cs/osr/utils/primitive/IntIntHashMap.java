@@ -0,0 +1,348 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from `int' keys to `int' values. Unlike a
+ * HashMap&lt;Integer, Integer&gt; it neither boxes keys and values nor
+ * allocates an object per entry.
+ * 
+ * Keys and values are stored in two parallel arrays using open addressing
+ * with linear probing. Removal shifts subsequent entries back instead of
+ * leaving tombstones, so lookups never degrade after many removals. Key 0
+ * marks a free slot in the table and is therefore stored separately.
+ * 
+ * Methods that look up a key return a configurable "missing value" (0 by
+ * default) if the key is not mapped. Use containsKey() to distinguish a
+ * missing key from a key mapped to the missing value. This class is not
+ * thread-safe.
+ */
+public class IntIntHashMap
+{
+	public static final float DEFAULT_LOAD_FACTOR = .5f;
+	
+	private final float loadFactor;
+	
+	private final int missingValue;
+	
+	private int[] keys;
+	
+	private int[] values;
+	
+	private int mask;
+	
+	private int threshold;
+	
+	/** Number of entries in the table, excluding key 0. */
+	private int assigned = 0;
+	
+	private boolean hasZeroKey = false;
+	
+	private int zeroValue;
+	
+	// =========================================================================
+	
+	public IntIntHashMap()
+	{
+		this(16);
+	}
+	
+	public IntIntHashMap(int expectedSize)
+	{
+		this(expectedSize, DEFAULT_LOAD_FACTOR, 0);
+	}
+	
+	/**
+	 * @param expectedSize
+	 *            The number of entries the map can hold without rehashing.
+	 * @param loadFactor
+	 *            The maximum fraction of occupied slots, must be in (0, 1).
+	 * @param missingValue
+	 *            The value returned by lookups of keys that are not mapped.
+	 */
+	public IntIntHashMap(int expectedSize, float loadFactor, int missingValue)
+	{
+		this.loadFactor = PrimitiveArrays.checkLoadFactor(loadFactor);
+		this.missingValue = missingValue;
+		this.zeroValue = missingValue;
+		allocate(PrimitiveArrays.tableSizeFor(expectedSize, loadFactor));
+	}
+	
+	// =========================================================================
+	
+	public int size()
+	{
+		return assigned + (hasZeroKey ? 1 : 0);
+	}
+	
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+	
+	public int getMissingValue()
+	{
+		return missingValue;
+	}
+	
+	public boolean containsKey(int key)
+	{
+		if (key == 0)
+			return hasZeroKey;
+		return find(key) >= 0;
+	}
+	
+	/**
+	 * @return The value mapped to the key or the missing value.
+	 */
+	public int get(int key)
+	{
+		return getOrDefault(key, missingValue);
+	}
+	
+	public int getOrDefault(int key, int defaultValue)
+	{
+		if (key == 0)
+			return hasZeroKey ? zeroValue : defaultValue;
+		
+		int slot = find(key);
+		return (slot >= 0) ? values[slot] : defaultValue;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * @return The value previously mapped to the key or the missing value.
+	 */
+	public int put(int key, int value)
+	{
+		if (key == 0)
+		{
+			int previous = zeroValue;
+			zeroValue = value;
+			hasZeroKey = true;
+			return previous;
+		}
+		
+		int slot = PrimitiveArrays.mix(key) & mask;
+		for (int k; (k = keys[slot]) != 0; slot = (slot + 1) & mask)
+		{
+			if (k == key)
+			{
+				int previous = values[slot];
+				values[slot] = value;
+				return previous;
+			}
+		}
+		
+		keys[slot] = key;
+		values[slot] = value;
+		if (++assigned > threshold)
+			rehash(keys.length << 1);
+		return missingValue;
+	}
+	
+	/**
+	 * Adds the given delta to the value mapped to the key. If the key is not
+	 * mapped, the delta is added to the missing value.
+	 * 
+	 * @return The new value.
+	 */
+	public int addTo(int key, int delta)
+	{
+		if (key == 0)
+		{
+			zeroValue = (hasZeroKey ? zeroValue : missingValue) + delta;
+			hasZeroKey = true;
+			return zeroValue;
+		}
+		
+		int slot = PrimitiveArrays.mix(key) & mask;
+		for (int k; (k = keys[slot]) != 0; slot = (slot + 1) & mask)
+		{
+			if (k == key)
+				return values[slot] += delta;
+		}
+		
+		int value = missingValue + delta;
+		keys[slot] = key;
+		values[slot] = value;
+		if (++assigned > threshold)
+			rehash(keys.length << 1);
+		return value;
+	}
+	
+	/**
+	 * @return The value that was mapped to the key or the missing value.
+	 */
+	public int remove(int key)
+	{
+		if (key == 0)
+		{
+			int previous = hasZeroKey ? zeroValue : missingValue;
+			hasZeroKey = false;
+			zeroValue = missingValue;
+			return previous;
+		}
+		
+		int slot = find(key);
+		if (slot < 0)
+			return missingValue;
+		
+		int previous = values[slot];
+		shiftBack(slot);
+		--assigned;
+		return previous;
+	}
+	
+	public void clear()
+	{
+		Arrays.fill(keys, 0);
+		assigned = 0;
+		hasZeroKey = false;
+		zeroValue = missingValue;
+	}
+	
+	// =========================================================================
+	
+	public int[] keys()
+	{
+		int[] result = new int[size()];
+		int j = 0;
+		if (hasZeroKey)
+			result[j++] = 0;
+		for (int i = 0; i < keys.length; ++i)
+		{
+			if (keys[i] != 0)
+				result[j++] = keys[i];
+		}
+		return result;
+	}
+	
+	/**
+	 * Passes all entries to the given visitor. The map must not be modified
+	 * while it is visited.
+	 */
+	public void forEach(EntryVisitor visitor)
+	{
+		if (hasZeroKey)
+			visitor.visit(0, zeroValue);
+		for (int i = 0; i < keys.length; ++i)
+		{
+			if (keys[i] != 0)
+				visitor.visit(keys[i], values[i]);
+		}
+	}
+	
+	@Override
+	public String toString()
+	{
+		final StringBuilder sb = new StringBuilder();
+		sb.append('{');
+		forEach(new EntryVisitor()
+		{
+			@Override
+			public void visit(int key, int value)
+			{
+				if (sb.length() > 1)
+					sb.append(", ");
+				sb.append(key).append('=').append(value);
+			}
+		});
+		sb.append('}');
+		return sb.toString();
+	}
+	
+	// =========================================================================
+	
+	private int find(int key)
+	{
+		int slot = PrimitiveArrays.mix(key) & mask;
+		for (int k; (k = keys[slot]) != 0; slot = (slot + 1) & mask)
+		{
+			if (k == key)
+				return slot;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Closes the gap left by a removed entry by moving back subsequent entries
+	 * of the same probe sequence.
+	 */
+	private void shiftBack(int gap)
+	{
+		int slot = gap;
+		while (true)
+		{
+			slot = (slot + 1) & mask;
+			int k = keys[slot];
+			if (k == 0)
+				break;
+			
+			int ideal = PrimitiveArrays.mix(k) & mask;
+			if (((slot - ideal) & mask) >= ((slot - gap) & mask))
+			{
+				keys[gap] = k;
+				values[gap] = values[slot];
+				gap = slot;
+			}
+		}
+		keys[gap] = 0;
+	}
+	
+	private void allocate(int tableSize)
+	{
+		keys = new int[tableSize];
+		values = new int[tableSize];
+		mask = tableSize - 1;
+		threshold = (int) Math.min(tableSize - 1, (long) Math.ceil(tableSize * loadFactor));
+	}
+	
+	private void rehash(int tableSize)
+	{
+		if (tableSize > PrimitiveArrays.MAX_TABLE_SIZE)
+			throw new OutOfMemoryError("Hash table too large");
+		
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(tableSize);
+		
+		for (int i = 0; i < oldKeys.length; ++i)
+		{
+			int k = oldKeys[i];
+			if (k != 0)
+			{
+				int slot = PrimitiveArrays.mix(k) & mask;
+				while (keys[slot] != 0)
+					slot = (slot + 1) & mask;
+				keys[slot] = k;
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+	
+	// =========================================================================
+	
+	public static interface EntryVisitor
+	{
+		public void visit(int key, int value);
+	}
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from `int' keys to object values. Unlike a HashMap&lt;Integer,
+ * V&gt; it neither boxes keys nor allocates an object per entry.
+ * 
+ * Keys and values are stored in two parallel arrays using open addressing
+ * with linear probing. Removal shifts subsequent entries back instead of
+ * leaving tombstones. Key 0 marks a free slot in the table and is therefore
+ * stored separately. Null values are not permitted. This class is not
+ * thread-safe.
+ * 
+ * @see IntIntHashMap
+ */
+public class IntObjectHashMap<V>
+{
+	public static final float DEFAULT_LOAD_FACTOR = .5f;
+	
+	private final float loadFactor;
+	
+	private int[] keys;
+	
+	private Object[] values;
+	
+	private int mask;
+	
+	private int threshold;
+	
+	/** Number of entries in the table, excluding key 0. */
+	private int assigned = 0;
+	
+	private Object zeroValue = null;
+	
+	// =========================================================================
+	
+	public IntObjectHashMap()
+	{
+		this(16);
+	}
+	
+	public IntObjectHashMap(int expectedSize)
+	{
+		this(expectedSize, DEFAULT_LOAD_FACTOR);
+	}
+	
+	/**
+	 * @param expectedSize
+	 *            The number of entries the map can hold without rehashing.
+	 * @param loadFactor
+	 *            The maximum fraction of occupied slots, must be in (0, 1).
+	 */
+	public IntObjectHashMap(int expectedSize, float loadFactor)
+	{
+		this.loadFactor = PrimitiveArrays.checkLoadFactor(loadFactor);
+		allocate(PrimitiveArrays.tableSizeFor(expectedSize, loadFactor));
+	}
+	
+	// =========================================================================
+	
+	public int size()
+	{
+		return assigned + (zeroValue != null ? 1 : 0);
+	}
+	
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+	
+	public boolean containsKey(int key)
+	{
+		return get(key) != null;
+	}
+	
+	/**
+	 * @return The value mapped to the key or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key)
+	{
+		if (key == 0)
+			return (V) zeroValue;
+		
+		int slot = find(key);
+		return (slot >= 0) ? (V) values[slot] : null;
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * @return The value previously mapped to the key or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value)
+	{
+		if (value == null)
+			throw new NullPointerException();
+		
+		if (key == 0)
+		{
+			Object previous = zeroValue;
+			zeroValue = value;
+			return (V) previous;
+		}
+		
+		int slot = PrimitiveArrays.mix(key) & mask;
+		for (int k; (k = keys[slot]) != 0; slot = (slot + 1) & mask)
+		{
+			if (k == key)
+			{
+				Object previous = values[slot];
+				values[slot] = value;
+				return (V) previous;
+			}
+		}
+		
+		keys[slot] = key;
+		values[slot] = value;
+		if (++assigned > threshold)
+			rehash(keys.length << 1);
+		return null;
+	}
+	
+	/**
+	 * @return The value that was mapped to the key or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key)
+	{
+		if (key == 0)
+		{
+			Object previous = zeroValue;
+			zeroValue = null;
+			return (V) previous;
+		}
+		
+		int slot = find(key);
+		if (slot < 0)
+			return null;
+		
+		Object previous = values[slot];
+		shiftBack(slot);
+		--assigned;
+		return (V) previous;
+	}
+	
+	public void clear()
+	{
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, null);
+		assigned = 0;
+		zeroValue = null;
+	}
+	
+	// =========================================================================
+	
+	public int[] keys()
+	{
+		int[] result = new int[size()];
+		int j = 0;
+		if (zeroValue != null)
+			result[j++] = 0;
+		for (int i = 0; i < keys.length; ++i)
+		{
+			if (keys[i] != 0)
+				result[j++] = keys[i];
+		}
+		return result;
+	}
+	
+	/**
+	 * Passes all entries to the given visitor. The map must not be modified
+	 * while it is visited.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(EntryVisitor<? super V> visitor)
+	{
+		if (zeroValue != null)
+			visitor.visit(0, (V) zeroValue);
+		for (int i = 0; i < keys.length; ++i)
+		{
+			if (keys[i] != 0)
+				visitor.visit(keys[i], (V) values[i]);
+		}
+	}
+	
+	@Override
+	public String toString()
+	{
+		final StringBuilder sb = new StringBuilder();
+		sb.append('{');
+		forEach(new EntryVisitor<V>()
+		{
+			@Override
+			public void visit(int key, V value)
+			{
+				if (sb.length() > 1)
+					sb.append(", ");
+				sb.append(key).append('=').append(value);
+			}
+		});
+		sb.append('}');
+		return sb.toString();
+	}
+	
+	// =========================================================================
+	
+	private int find(int key)
+	{
+		int slot = PrimitiveArrays.mix(key) & mask;
+		for (int k; (k = keys[slot]) != 0; slot = (slot + 1) & mask)
+		{
+			if (k == key)
+				return slot;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Closes the gap left by a removed entry by moving back subsequent entries
+	 * of the same probe sequence.
+	 */
+	private void shiftBack(int gap)
+	{
+		int slot = gap;
+		while (true)
+		{
+			slot = (slot + 1) & mask;
+			int k = keys[slot];
+			if (k == 0)
+				break;
+			
+			int ideal = PrimitiveArrays.mix(k) & mask;
+			if (((slot - ideal) & mask) >= ((slot - gap) & mask))
+			{
+				keys[gap] = k;
+				values[gap] = values[slot];
+				gap = slot;
+			}
+		}
+		keys[gap] = 0;
+		values[gap] = null;
+	}
+	
+	private void allocate(int tableSize)
+	{
+		keys = new int[tableSize];
+		values = new Object[tableSize];
+		mask = tableSize - 1;
+		threshold = (int) Math.min(tableSize - 1, (long) Math.ceil(tableSize * loadFactor));
+	}
+	
+	private void rehash(int tableSize)
+	{
+		if (tableSize > PrimitiveArrays.MAX_TABLE_SIZE)
+			throw new OutOfMemoryError("Hash table too large");
+		
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(tableSize);
+		
+		for (int i = 0; i < oldKeys.length; ++i)
+		{
+			int k = oldKeys[i];
+			if (k != 0)
+			{
+				int slot = PrimitiveArrays.mix(k) & mask;
+				while (keys[slot] != 0)
+					slot = (slot + 1) & mask;
+				keys[slot] = k;
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+	
+	// =========================================================================
+	
+	public static interface EntryVisitor<V>
+	{
+		public void visit(int key, V value);
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import de.fau.cs.osr.utils.FmtIllegalArgumentException;
+
+/**
+ * Sizing and hashing helpers shared by the primitive collections.
+ */
+final class PrimitiveArrays
+{
+	/** Some VMs reserve header words in an array. */
+	static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+	
+	static final int MAX_TABLE_SIZE = 1 << 30;
+	
+	// =========================================================================
+	
+	private PrimitiveArrays()
+	{
+	}
+	
+	// =========================================================================
+	
+	/**
+	 * Returns the capacity of a grown array: 1.5 times the current capacity
+	 * but at least minCapacity.
+	 */
+	static int newCapacity(int capacity, int minCapacity)
+	{
+		if (minCapacity < 0 || minCapacity > MAX_ARRAY_SIZE)
+			throw new OutOfMemoryError("Array too large");
+		
+		long grown = Math.max(capacity + (capacity >> 1) + 1L, minCapacity);
+		return (int) Math.min(grown, MAX_ARRAY_SIZE);
+	}
+	
+	/**
+	 * Returns the power-of-two table size required to hold the given number
+	 * of entries without exceeding the load factor.
+	 */
+	static int tableSizeFor(int expectedSize, float loadFactor)
+	{
+		long required = (long) Math.ceil(Math.max(expectedSize, 1) / (double) loadFactor);
+		if (required > MAX_TABLE_SIZE)
+			throw new OutOfMemoryError("Hash table too large");
+		
+		int size = Integer.highestOneBit((int) Math.max(required, 2));
+		return (size < required) ? size << 1 : size;
+	}
+	
+	static float checkLoadFactor(float loadFactor)
+	{
+		if (!(loadFactor > 0 && loadFactor < 1))
+			throw new FmtIllegalArgumentException(
+			        "Load factor must be in (0, 1): %f", loadFactor);
+		return loadFactor;
+	}
+	
+	/**
+	 * Scrambles the bits of an int key. Keys like state IDs or offsets tend to
+	 * be small and consecutive and would otherwise cluster in a linearly
+	 * probed table.
+	 */
+	static int mix(int key)
+	{
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
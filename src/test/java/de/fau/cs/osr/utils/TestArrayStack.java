@@ -0,0 +1,124 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestArrayStack
+{
+	@Test
+	public void testPushPopPeek()
+	{
+		ArrayStack<Integer> stack = new ArrayStack<Integer>();
+		for (int i = 0; i < 100; ++i)
+			stack.push(i);
+		
+		Assert.assertEquals(100, stack.size());
+		Assert.assertEquals(Integer.valueOf(99), stack.peek());
+		Assert.assertEquals(Integer.valueOf(97), stack.peek(2));
+		Assert.assertEquals(Integer.valueOf(3), stack.get(3));
+		Assert.assertEquals(Integer.valueOf(99), stack.pop());
+		
+		stack.popN(49);
+		Assert.assertEquals(50, stack.size());
+		Assert.assertEquals(Integer.valueOf(49), stack.peek());
+	}
+	
+	@Test
+	public void testGrowthIsGeometric()
+	{
+		ArrayStack<Object> stack = new ArrayStack<Object>(10, 1, 2., 0);
+		for (int i = 0; i < 1000; ++i)
+			stack.push(i);
+		Assert.assertEquals(1280, stack.getCapacity());
+		
+		stack.trimToSize();
+		Assert.assertEquals(1000, stack.getCapacity());
+	}
+	
+	@Test
+	public void testShrinkPolicy()
+	{
+		ArrayStack<Object> stack = new ArrayStack<Object>(4, 1, 2., .25);
+		for (int i = 0; i < 64; ++i)
+			stack.push(i);
+		Assert.assertEquals(64, stack.getCapacity());
+		
+		stack.popN(48);
+		Assert.assertEquals(32, stack.getCapacity());
+		
+		stack.clear();
+		Assert.assertEquals(16, stack.getCapacity());
+	}
+	
+	@Test
+	public void testPushAllAndIterator()
+	{
+		ArrayStack<String> stack = new ArrayStack<String>(0, 1);
+		stack.push("a");
+		stack.pushAll(Arrays.asList("b", "c"));
+		
+		ArrayList<String> items = new ArrayList<String>();
+		for (String s : stack)
+			items.add(s);
+		Assert.assertEquals(Arrays.asList("a", "b", "c"), items);
+		Assert.assertEquals("c", stack.peek());
+	}
+	
+	@Test
+	public void testMarkAndRewind()
+	{
+		ArrayStack<String> stack = new ArrayStack<String>();
+		stack.push("a");
+		
+		int mark = stack.mark();
+		stack.push("b");
+		stack.push("c");
+		stack.rewind(mark);
+		
+		Assert.assertEquals(1, stack.size());
+		Assert.assertEquals("a", stack.peek());
+	}
+	
+	@Test
+	public void testPersistentStackSharesStructure()
+	{
+		PersistentStack<String> base = PersistentStack.<String> empty().push("a").push("b");
+		PersistentStack<String> left = base.push("l");
+		PersistentStack<String> right = base.pop().push("r");
+		
+		Assert.assertEquals("[l, b, a]", left.toString());
+		Assert.assertEquals("[r, a]", right.toString());
+		Assert.assertEquals("[b, a]", base.toString());
+		Assert.assertSame(base, left.pop());
+		Assert.assertSame(base.pop(), right.popN(1));
+		Assert.assertTrue(left.popN(3).isEmpty());
+	}
+	
+	@Test(expected = EmptyStackException.class)
+	public void testPopOnEmptyStack()
+	{
+		new ArrayStack<Object>().pop();
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestConsoleProgressBar
+{
+	@Test
+	public void testSynchronousRedrawEveryIndicatorStep()
+	{
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		ConsoleProgressBar bar = new ConsoleProgressBar(0, 10, 10);
+		bar.setOut(new PrintStream(buf, true));
+		bar.setIndicatorStep(5);
+		
+		for (int i = 0; i < 10; ++i)
+		{
+			bar.advance();
+			// Progress is current even between redraws
+			Assert.assertEquals((i + 1) / 10.f, bar.getProgress());
+		}
+		
+		String[] lines = buf.toString().split("\r");
+		Assert.assertEquals(2, lines.length);
+		Assert.assertEquals("|=         |-  10.0", lines[0]);
+		Assert.assertEquals("|======    |\\  60.0", lines[1]);
+	}
+	
+	@Test
+	public void testConcurrentAdvanceWithRenderer() throws Exception
+	{
+		ByteArrayOutputStream buf = new ByteArrayOutputStream();
+		final ConsoleProgressBar bar = new ConsoleProgressBar(0, 40000, 20);
+		bar.setOut(new PrintStream(buf, true));
+		bar.startRenderer(10, TimeUnit.MILLISECONDS);
+		Assert.assertTrue(bar.isRendererRunning());
+		
+		Thread[] workers = new Thread[4];
+		for (int i = 0; i < workers.length; ++i)
+		{
+			workers[i] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					for (int j = 0; j < 10000; ++j)
+						bar.advance();
+				}
+			};
+			workers[i].start();
+		}
+		for (Thread t : workers)
+			t.join();
+		
+		bar.stopRenderer();
+		Assert.assertFalse(bar.isRendererRunning());
+		Assert.assertEquals(40000, bar.getCur());
+		Assert.assertEquals(1.f, bar.getProgress());
+		
+		String out = buf.toString();
+		Assert.assertTrue(out.endsWith("100.0\r"));
+		// Far fewer redraws than calls to advance()
+		Assert.assertTrue(out.split("\r").length < 1000);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testRendererCannotBeStartedTwice() throws Exception
+	{
+		ConsoleProgressBar bar = new ConsoleProgressBar(0, 10, 10);
+		bar.setOut(new PrintStream(new ByteArrayOutputStream()));
+		bar.startRenderer();
+		try
+		{
+			bar.startRenderer();
+		}
+		finally
+		{
+			bar.stopRenderer();
+		}
+	}
+}
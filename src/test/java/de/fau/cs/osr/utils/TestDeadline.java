@@ -0,0 +1,104 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestDeadline
+{
+	@Test
+	public void testExpiresWithTicker()
+	{
+		ManualTicker ticker = new ManualTicker();
+		Deadline d = Deadline.after(100, TimeUnit.MILLISECONDS, ticker);
+		
+		Assert.assertFalse(d.isExpired());
+		Assert.assertEquals(100, d.remaining(TimeUnit.MILLISECONDS));
+		d.check();
+		
+		ticker.advance(60, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(40, d.remaining(TimeUnit.MILLISECONDS));
+		
+		ticker.advance(40, TimeUnit.MILLISECONDS);
+		Assert.assertTrue(d.isExpired());
+		Assert.assertEquals(0, d.remaining(TimeUnit.MILLISECONDS));
+	}
+	
+	@Test(expected = DeadlineExceededException.class)
+	public void testCheckThrowsWhenExpired()
+	{
+		ManualTicker ticker = new ManualTicker();
+		Deadline d = Deadline.after(1, TimeUnit.SECONDS, ticker);
+		ticker.advance(2, TimeUnit.SECONDS);
+		d.check();
+	}
+	
+	@Test
+	public void testRestrictNeverExtendsBudget()
+	{
+		ManualTicker ticker = new ManualTicker();
+		Deadline outer = Deadline.after(100, TimeUnit.MILLISECONDS, ticker);
+		
+		Deadline shorter = outer.restrict(10, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(10, shorter.remaining(TimeUnit.MILLISECONDS));
+		
+		Deadline longer = outer.restrict(1, TimeUnit.SECONDS);
+		Assert.assertSame(outer, longer);
+		
+		Assert.assertSame(shorter, outer.min(shorter));
+		Assert.assertTrue(shorter.compareTo(outer) < 0);
+	}
+	
+	@Test
+	public void testHugeDurationDoesNotOverflow()
+	{
+		ManualTicker ticker = new ManualTicker(Long.MAX_VALUE / 2);
+		Deadline d = Deadline.after(Long.MAX_VALUE, TimeUnit.DAYS, ticker);
+		Assert.assertFalse(d.isExpired());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDifferentTickersAreNotComparable()
+	{
+		Deadline.after(1, TimeUnit.SECONDS, new ManualTicker()).min(
+		        Deadline.after(1, TimeUnit.SECONDS, new ManualTicker()));
+	}
+	
+	@Test
+	public void testDeadlineFromStopWatch()
+	{
+		ManualTicker ticker = new ManualTicker();
+		StopWatch watch = new StopWatch(ticker);
+		watch.start();
+		ticker.advance(30, TimeUnit.MILLISECONDS);
+		
+		Deadline d = watch.getDeadline(100, TimeUnit.MILLISECONDS);
+		Assert.assertSame(ticker, d.getTicker());
+		Assert.assertEquals(70, d.remaining(TimeUnit.MILLISECONDS));
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testDeadlineFromUnstartedStopWatch()
+	{
+		new StopWatch(new ManualTicker()).getDeadline(1, TimeUnit.SECONDS);
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestDoubleRingBuffer
+{
+	@Test
+	public void testOverwritesOldest()
+	{
+		DoubleRingBuffer rb = new DoubleRingBuffer(3);
+		for (int i = 0; i < 7; ++i)
+			rb.add(i * 0.5);
+		
+		Assert.assertTrue(rb.isFull());
+		Assert.assertEquals(3, rb.size());
+		Assert.assertEquals(2.0, rb.peekFirst(), 0.);
+		Assert.assertEquals(3.0, rb.peekLast(), 0.);
+		Assert.assertEquals(2.5, rb.get(1), 0.);
+		Assert.assertTrue(Arrays.equals(
+		        new double[] { 2.0, 2.5, 3.0 },
+		        rb.toArray()));
+	}
+	
+	@Test
+	public void testRemoveAcrossWrap()
+	{
+		DoubleRingBuffer rb = new DoubleRingBuffer(4, true);
+		for (int i = 1; i <= 6; ++i)
+			rb.add(i);
+		
+		// The oldest value sits at the end of the array, the newest at its start
+		Assert.assertEquals(3, rb.removeFirst(), 0.);
+		Assert.assertEquals(6, rb.removeLast(), 0.);
+		Assert.assertEquals(5, rb.removeLast(), 0.);
+		Assert.assertEquals(4, rb.removeFirst(), 0.);
+		Assert.assertTrue(rb.isEmpty());
+		
+		rb.add(7);
+		Assert.assertEquals(7, rb.peekFirst(), 0.);
+		Assert.assertEquals(7, rb.peekLast(), 0.);
+	}
+	
+	@Test
+	public void testBulkCopyAcrossWrap()
+	{
+		DoubleRingBuffer rb = new DoubleRingBuffer(5);
+		rb.addAll(new double[] { 1, 2, 3, 4 }, 0, 4);
+		rb.addAll(new double[] { 0, 5, 6, 7 }, 1, 3);
+		
+		double[] copy = new double[5];
+		Assert.assertEquals(5, rb.copyTo(copy, 0));
+		Assert.assertTrue(Arrays.equals(new double[] { 3, 4, 5, 6, 7 }, copy));
+		
+		double sum = 0;
+		PrimitiveIterator.OfDouble i = rb.iterator();
+		while (i.hasNext())
+			sum += i.nextDouble();
+		Assert.assertEquals(25, sum, 0.);
+		
+		double[] dest = new double[6];
+		Assert.assertEquals(5, rb.drainTo(dest, 1));
+		Assert.assertTrue(Arrays.equals(new double[] { 0, 3, 4, 5, 6, 7 }, dest));
+		Assert.assertTrue(rb.isEmpty());
+	}
+	
+	@Test
+	public void testAddAllLongerThanCapacity()
+	{
+		DoubleRingBuffer rb = new DoubleRingBuffer(3);
+		rb.add(Double.NaN);
+		rb.addAll(new double[] { 1, 2, 3, 4, 5 }, 0, 5);
+		Assert.assertTrue(Arrays.equals(new double[] { 3, 4, 5 }, rb.toArray()));
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestIntRingBuffer
+{
+	@Test
+	public void testOverwritesOldest()
+	{
+		IntRingBuffer rb = new IntRingBuffer(4, true);
+		for (int i = 0; i < 10; ++i)
+			rb.add(i);
+		
+		Assert.assertEquals(4, rb.size());
+		Assert.assertEquals(6, rb.peekFirst());
+		Assert.assertEquals(9, rb.peekLast());
+		Assert.assertEquals(7, rb.get(1));
+		Assert.assertTrue(Arrays.equals(new int[] { 6, 7, 8, 9 }, rb.toArray()));
+	}
+	
+	@Test
+	public void testBulkCopyAcrossWrap()
+	{
+		IntRingBuffer rb = new IntRingBuffer(5);
+		rb.addAll(new int[] { 1, 2, 3, 4 }, 0, 4);
+		rb.addAll(new int[] { 0, 5, 6, 7 }, 1, 3);
+		
+		int[] dest = new int[7];
+		Assert.assertEquals(5, rb.drainTo(dest, 2));
+		Assert.assertTrue(Arrays.equals(new int[] { 0, 0, 3, 4, 5, 6, 7 }, dest));
+		Assert.assertTrue(rb.isEmpty());
+	}
+	
+	@Test
+	public void testPrimitiveIterator()
+	{
+		IntRingBuffer rb = new IntRingBuffer(3);
+		rb.add(1);
+		rb.add(2);
+		rb.add(3);
+		rb.add(4);
+		
+		int sum = 0;
+		PrimitiveIterator.OfInt i = rb.iterator();
+		while (i.hasNext())
+			sum += i.nextInt();
+		
+		Assert.assertEquals(9, sum);
+	}
+	
+	@Test
+	public void testLongAndDoubleVariants()
+	{
+		LongRingBuffer longs = new LongRingBuffer(2);
+		longs.add(1L << 40);
+		longs.add(2L << 40);
+		longs.add(3L << 40);
+		Assert.assertEquals(2L << 40, longs.removeFirst());
+		
+		DoubleRingBuffer doubles = new DoubleRingBuffer(2);
+		doubles.add(0.5);
+		doubles.add(1.5);
+		Assert.assertEquals(1.5, doubles.removeLast(), 0.);
+		Assert.assertEquals(1, doubles.size());
+	}
+}
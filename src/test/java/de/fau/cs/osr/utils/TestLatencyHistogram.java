@@ -0,0 +1,111 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestLatencyHistogram
+{
+	@Test
+	public void testPercentilesWithinPrecision()
+	{
+		LatencyHistogram h = new LatencyHistogram(TimeUnit.MINUTES.toNanos(10), 3);
+		for (long v = 1; v <= 100000; ++v)
+			h.record(v * 1000);
+		
+		LatencyHistogram.Snapshot s = h.snapshot();
+		Assert.assertEquals(100000, s.getCount());
+		Assert.assertEquals(1000, s.getMin());
+		Assert.assertEquals(100000000, s.getMax());
+		Assert.assertEquals(50000500., s.getMean(), 1e-6);
+		
+		assertWithin(50000000, s.getPercentile(50), .001);
+		assertWithin(99000000, s.getPercentile(99), .001);
+		assertWithin(99900000, s.getPercentile(99.9), .001);
+		Assert.assertEquals(100000000, s.getPercentile(100));
+		Assert.assertEquals(1000, s.getPercentile(0));
+	}
+	
+	@Test
+	public void testValuesAboveRangeAreClamped()
+	{
+		LatencyHistogram h = new LatencyHistogram(1000, 2, 1);
+		h.record(10);
+		h.record(1000000);
+		
+		LatencyHistogram.Snapshot s = h.snapshot();
+		Assert.assertEquals(1000000, s.getMax());
+		Assert.assertEquals(1000000, s.getPercentile(100));
+		Assert.assertEquals(10, s.getPercentile(50));
+	}
+	
+	@Test
+	public void testMergeAndReset()
+	{
+		LatencyHistogram a = new LatencyHistogram(1000000, 2);
+		LatencyHistogram b = new LatencyHistogram(1000000, 2);
+		a.record(100, 3);
+		b.record(200);
+		
+		LatencyHistogram.Snapshot merged = a.snapshot().merge(b.snapshot());
+		Assert.assertEquals(4, merged.getCount());
+		Assert.assertEquals(500, merged.getSum());
+		Assert.assertEquals(100, merged.getPercentile(75));
+		Assert.assertEquals(200, merged.getPercentile(100));
+		
+		a.reset();
+		Assert.assertEquals(0, a.snapshot().getCount());
+		Assert.assertEquals(0, a.snapshot().getPercentile(50));
+	}
+	
+	@Test
+	public void testConcurrentRecording() throws Exception
+	{
+		final LatencyHistogram h = new LatencyHistogram(1000000, 2, 4);
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; ++i)
+		{
+			threads[i] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					for (int j = 0; j < 10000; ++j)
+						h.record(j);
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread t : threads)
+			t.join();
+		
+		Assert.assertEquals(40000, h.snapshot().getCount());
+		Assert.assertEquals(9999, h.snapshot().getMax());
+	}
+	
+	private static void assertWithin(long expected, long actual, double relativeError)
+	{
+		Assert.assertTrue(
+		        expected + " != " + actual,
+		        Math.abs(actual - expected) <= expected * relativeError);
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestLongRingBuffer
+{
+	@Test
+	public void testOverwritesOldest()
+	{
+		LongRingBuffer rb = new LongRingBuffer(3);
+		for (long i = 0; i < 7; ++i)
+			rb.add(i << 40);
+		
+		Assert.assertTrue(rb.isFull());
+		Assert.assertEquals(3, rb.size());
+		Assert.assertEquals(4L << 40, rb.peekFirst());
+		Assert.assertEquals(6L << 40, rb.peekLast());
+		Assert.assertEquals(5L << 40, rb.get(1));
+		Assert.assertTrue(Arrays.equals(
+		        new long[] { 4L << 40, 5L << 40, 6L << 40 },
+		        rb.toArray()));
+	}
+	
+	@Test
+	public void testRemoveAcrossWrap()
+	{
+		LongRingBuffer rb = new LongRingBuffer(4, true);
+		for (long i = 1; i <= 6; ++i)
+			rb.add(i);
+		
+		// The oldest value sits at the end of the array, the newest at its start
+		Assert.assertEquals(3, rb.removeFirst());
+		Assert.assertEquals(6, rb.removeLast());
+		Assert.assertEquals(5, rb.removeLast());
+		Assert.assertEquals(4, rb.removeFirst());
+		Assert.assertTrue(rb.isEmpty());
+		
+		rb.add(7);
+		Assert.assertEquals(7, rb.peekFirst());
+		Assert.assertEquals(7, rb.peekLast());
+	}
+	
+	@Test
+	public void testBulkCopyAcrossWrap()
+	{
+		LongRingBuffer rb = new LongRingBuffer(5);
+		rb.addAll(new long[] { 1, 2, 3, 4 }, 0, 4);
+		rb.addAll(new long[] { 0, 5, 6, 7 }, 1, 3);
+		
+		long[] copy = new long[5];
+		Assert.assertEquals(5, rb.copyTo(copy, 0));
+		Assert.assertTrue(Arrays.equals(new long[] { 3, 4, 5, 6, 7 }, copy));
+		
+		long sum = 0;
+		PrimitiveIterator.OfLong i = rb.iterator();
+		while (i.hasNext())
+			sum += i.nextLong();
+		Assert.assertEquals(25, sum);
+		
+		long[] dest = new long[6];
+		Assert.assertEquals(5, rb.drainTo(dest, 1));
+		Assert.assertTrue(Arrays.equals(new long[] { 0, 3, 4, 5, 6, 7 }, dest));
+		Assert.assertTrue(rb.isEmpty());
+	}
+	
+	@Test
+	public void testAddAllLongerThanCapacity()
+	{
+		LongRingBuffer rb = new LongRingBuffer(3);
+		rb.add(-1);
+		rb.addAll(new long[] { 1, 2, 3, 4, 5 }, 0, 5);
+		Assert.assertTrue(Arrays.equals(new long[] { 3, 4, 5 }, rb.toArray()));
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fau.cs.osr.utils.MappedRingBufferReader.Record;
+
+public class TestMappedRingBuffer
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	private File file;
+	
+	@Before
+	public void createFile() throws IOException
+	{
+		file = File.createTempFile("ringbuffer---", ".bin");
+		file.deleteOnExit();
+	}
+	
+	@After
+	public void deleteFile()
+	{
+		file.delete();
+	}
+	
+	// =========================================================================
+	
+	@Test
+	public void testRecordsCanBeRecovered() throws IOException
+	{
+		MappedRingBuffer rb = new MappedRingBuffer(file, 1024);
+		rb.append("first".getBytes(UTF8));
+		rb.append("second".getBytes(UTF8));
+		rb.close();
+		
+		List<Record> records = MappedRingBufferReader.read(file);
+		Assert.assertEquals(2, records.size());
+		Assert.assertEquals(0, records.get(0).getSequence());
+		Assert.assertEquals("first", new String(records.get(0).getData(), UTF8));
+		Assert.assertEquals("second", new String(records.get(1).getData(), UTF8));
+	}
+	
+	@Test
+	public void testOldRecordsAreOverwritten() throws IOException
+	{
+		MappedRingBuffer rb = new MappedRingBuffer(file, 100);
+		for (int i = 0; i < 1000; ++i)
+			rb.append(String.format("record-%04d", i).getBytes(UTF8));
+		rb.close();
+		
+		// 27 bytes per record, so at most 3 complete records fit
+		List<Record> records = MappedRingBufferReader.read(file);
+		Assert.assertEquals(3, records.size());
+		Assert.assertEquals(997, records.get(0).getSequence());
+		Assert.assertEquals("record-0999", new String(records.get(2).getData(), UTF8));
+	}
+	
+	@Test
+	public void testReopeningAppendsToExistingRecords() throws IOException
+	{
+		MappedRingBuffer rb = new MappedRingBuffer(file, 256);
+		rb.append(new byte[] { 1 });
+		rb.close();
+		
+		rb = new MappedRingBuffer(file, 256);
+		Assert.assertEquals(1, rb.getNextSequence());
+		rb.append(new byte[] { 2, 3 });
+		rb.close();
+		
+		List<Record> records = MappedRingBufferReader.read(file);
+		Assert.assertEquals(2, records.size());
+		Assert.assertEquals(2, records.get(1).getData().length);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testOversizedRecordIsRejected() throws IOException
+	{
+		MappedRingBuffer rb = new MappedRingBuffer(file, 64);
+		try
+		{
+			rb.append(new byte[rb.getMaxRecordSize() + 1]);
+		}
+		finally
+		{
+			rb.close();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestMemoryMeter
+{
+	private static final class Node
+	{
+		@SuppressWarnings("unused")
+		private int value;
+		
+		private Node next;
+	}
+	
+	@Test
+	public void testSizesAreAligned()
+	{
+		int alignment = MemoryMeter.getObjectAlignment();
+		
+		Assert.assertEquals(0, MemoryMeter.sizeOf(new Object()) % alignment);
+		Assert.assertEquals(0, MemoryMeter.sizeOf(new Node()) % alignment);
+		Assert.assertEquals(0, MemoryMeter.sizeOf(new byte[13]) % alignment);
+		
+		Assert.assertTrue(
+				MemoryMeter.sizeOf(new Object()) >= MemoryMeter.getObjectHeaderSize());
+	}
+	
+	@Test
+	public void testArraySizeGrowsWithLength()
+	{
+		long small = MemoryMeter.sizeOf(new long[1]);
+		long large = MemoryMeter.sizeOf(new long[101]);
+		Assert.assertEquals(800, large - small);
+		
+		Assert.assertEquals(
+				MemoryMeter.sizeOf(new Object[8]),
+				MemoryMeter.sizeOf(new String[8]));
+	}
+	
+	@Test
+	public void testSharedObjectsAreCountedOnce()
+	{
+		Node shared = new Node();
+		Object[] array = new Object[] { shared, shared, shared };
+		
+		Assert.assertEquals(
+				MemoryMeter.sizeOf(array) + MemoryMeter.sizeOf(shared),
+				MemoryMeter.deepSizeOf(array));
+	}
+	
+	@Test
+	public void testCyclesAndLongChainsTerminate()
+	{
+		Node head = new Node();
+		Node tail = head;
+		for (int i = 0; i < 100000; ++i)
+		{
+			tail.next = new Node();
+			tail = tail.next;
+		}
+		tail.next = head;
+		
+		Assert.assertEquals(
+				100001 * MemoryMeter.sizeOf(head),
+				MemoryMeter.deepSizeOf(head));
+	}
+	
+	@Test
+	public void testJdkCollectionsCoverTheirElements()
+	{
+		ArrayList<long[]> list = new ArrayList<long[]>();
+		for (int i = 0; i < 1000; ++i)
+			list.add(new long[100]);
+		
+		long elements = 1000 * MemoryMeter.sizeOf(new long[100]);
+		Assert.assertTrue(MemoryMeter.deepSizeOf(list) > elements);
+		
+		HashMap<Integer, String> map = new HashMap<Integer, String>();
+		for (int i = 0; i < 1000; ++i)
+			map.put(i + 1000, "value" + i);
+		
+		// Each entry holds at least a key, a value and its characters
+		Assert.assertTrue(MemoryMeter.deepSizeOf(map) > 1000 * (
+				MemoryMeter.sizeOf(Integer.valueOf(1000))
+						+ MemoryMeter.sizeOf("value")
+						+ MemoryMeter.sizeOf(new byte[6])));
+		
+		Assert.assertTrue(
+				MemoryMeter.deepSizeOf("hello world") >= MemoryMeter.sizeOf("hello world")
+						+ MemoryMeter.sizeOf(new byte[11]));
+	}
+	
+	@Test
+	public void testNullAndSharedInstances()
+	{
+		Assert.assertEquals(0, MemoryMeter.deepSizeOf(null));
+		Assert.assertEquals(0, MemoryMeter.deepSizeOf(String.class));
+		Assert.assertEquals(0, MemoryMeter.deepSizeOf(Thread.State.NEW));
+	}
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestProfiler
+{
+	@Test
+	public void testNestedScopes() throws Exception
+	{
+		Profiler profiler = new Profiler();
+		for (int i = 0; i < 3; ++i)
+		{
+			try (Profiler.Scope doc = profiler.enter("document"))
+			{
+				try (Profiler.Scope parse = profiler.enter("parse"))
+				{
+					Thread.sleep(2);
+				}
+				try (Profiler.Scope render = profiler.enter("render"))
+				{
+				}
+			}
+		}
+		
+		Profiler.Report report = profiler.getReport();
+		Assert.assertEquals(1, report.getScopes().size());
+		
+		Profiler.Report.Entry doc = report.find("document");
+		Assert.assertEquals(3, doc.getCount());
+		Assert.assertEquals(2, doc.getChildren().size());
+		
+		Profiler.Report.Entry parse = report.find("document", "parse");
+		Assert.assertEquals(3, parse.getCount());
+		Assert.assertTrue(parse.getTotalTime(TimeUnit.MILLISECONDS) >= 6);
+		Assert.assertTrue(doc.getTotalTime(TimeUnit.NANOSECONDS) >= parse.getTotalTime(TimeUnit.NANOSECONDS));
+		Assert.assertEquals(
+		        doc.getTotalTime(TimeUnit.NANOSECONDS)
+		                - parse.getTotalTime(TimeUnit.NANOSECONDS)
+		                - report.find("document", "render").getTotalTime(TimeUnit.NANOSECONDS),
+		        doc.getSelfTime(TimeUnit.NANOSECONDS));
+		
+		Assert.assertNull(report.find("parse"));
+		Assert.assertTrue(report.toString().contains("  parse"));
+	}
+	
+	@Test
+	public void testThreadsAreMerged() throws Exception
+	{
+		final Profiler profiler = new Profiler();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; ++i)
+		{
+			threads[i] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					for (int j = 0; j < 1000; ++j)
+					{
+						try (Profiler.Scope s = profiler.enter("work"))
+						{
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread t : threads)
+			t.join();
+		
+		Assert.assertEquals(4000, profiler.getReport().find("work").getCount());
+		
+		profiler.reset();
+		Assert.assertTrue(profiler.getReport().getScopes().isEmpty());
+	}
+	
+	@Test
+	public void testTerminatedThreadsAreFolded() throws Exception
+	{
+		final Profiler profiler = new Profiler();
+		for (int i = 0; i < 500; ++i)
+		{
+			Thread t = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try (Profiler.Scope doc = profiler.enter("document"))
+					{
+						try (Profiler.Scope parse = profiler.enter("parse"))
+						{
+						}
+					}
+				}
+			};
+			t.start();
+			t.join();
+			
+			// Registration folds in terminated threads from time to time
+			Assert.assertTrue(profiler.getThreadTreeCount() <= 32);
+		}
+		
+		Profiler.Report report = profiler.getReport();
+		Assert.assertEquals(0, profiler.getThreadTreeCount());
+		Assert.assertEquals(500, report.find("document").getCount());
+		Assert.assertEquals(500, report.find("document", "parse").getCount());
+	}
+	
+	@Test
+	public void testReportWhileThreadsTerminate() throws Exception
+	{
+		final Profiler profiler = new Profiler();
+		final AtomicInteger started = new AtomicInteger();
+		final int n = 2000;
+		
+		Thread spawner = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				for (int i = 0; i < n; ++i)
+				{
+					started.incrementAndGet();
+					Thread t = new Thread()
+					{
+						@Override
+						public void run()
+						{
+							try (Profiler.Scope doc = profiler.enter("document"))
+							{
+							}
+						}
+					};
+					t.start();
+				}
+			}
+		};
+		spawner.start();
+		
+		while (spawner.isAlive())
+		{
+			Profiler.Report.Entry doc = profiler.getReport().find("document");
+			if (doc != null)
+				Assert.assertTrue(doc.getCount() <= started.get());
+		}
+		spawner.join();
+		
+		long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		long count = 0;
+		while (count < n && System.nanoTime() < giveUp)
+		{
+			count = profiler.getReport().find("document").getCount();
+			Assert.assertTrue(count <= n);
+		}
+		Assert.assertEquals(n, count);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testScopesMustBeClosedInOrder()
+	{
+		Profiler profiler = new Profiler();
+		Profiler.Scope outer = profiler.enter("outer");
+		profiler.enter("inner");
+		outer.close();
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestResourceMeter
+{
+	@Test
+	public void testMeasuresAllocationAndCpuTime()
+	{
+		ResourceMeter meter = new ResourceMeter().start();
+		
+		long[][] garbage = new long[64][];
+		long sum = 0;
+		for (int i = 0; i < garbage.length; ++i)
+		{
+			garbage[i] = new long[1024];
+			for (int j = 0; j < 100000; ++j)
+				sum += j ^ i;
+		}
+		
+		meter.stop();
+		Assert.assertTrue(sum != 0);
+		Assert.assertTrue(meter.getElapsedTime(TimeUnit.NANOSECONDS) > 0);
+		
+		if (ResourceMeter.isAllocatedBytesSupported())
+			Assert.assertTrue(meter.getAllocatedBytes() >= 64 * 1024 * 8);
+		else
+			Assert.assertEquals(-1, meter.getAllocatedBytes());
+		
+		if (ResourceMeter.isCpuTimeSupported())
+		{
+			Assert.assertTrue(meter.getCpuTime(TimeUnit.NANOSECONDS) >= 0);
+			Assert.assertTrue(meter.getSystemTime(TimeUnit.NANOSECONDS) >= 0);
+		}
+		else
+		{
+			Assert.assertEquals(-1, meter.getCpuTime(TimeUnit.NANOSECONDS));
+		}
+	}
+	
+	@Test
+	public void testDisabledCpuTimeAndEnable()
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!threads.isCurrentThreadCpuTimeSupported())
+			return;
+		
+		boolean wasEnabled = threads.isThreadCpuTimeEnabled();
+		try
+		{
+			threads.setThreadCpuTimeEnabled(false);
+			Assert.assertFalse(ResourceMeter.isCpuTimeSupported());
+			
+			ResourceMeter meter = new ResourceMeter().start().stop();
+			Assert.assertEquals(-1, meter.getCpuTime(TimeUnit.NANOSECONDS));
+			
+			ResourceMeter.enable();
+			Assert.assertTrue(ResourceMeter.isCpuTimeSupported());
+			Assert.assertTrue(threads.isThreadCpuTimeEnabled());
+		}
+		finally
+		{
+			threads.setThreadCpuTimeEnabled(wasEnabled);
+		}
+	}
+	
+	@Test
+	public void testNoResultsWhileRunning()
+	{
+		ResourceMeter meter = new ResourceMeter().start();
+		Assert.assertTrue(meter.isRunning());
+		Assert.assertEquals(-1, meter.getCpuTime(TimeUnit.MILLISECONDS));
+		Assert.assertEquals(-1, meter.getAllocatedBytes());
+		
+		meter.reset();
+		Assert.assertFalse(meter.isRunning());
+		Assert.assertEquals(0, meter.getElapsedTime(TimeUnit.NANOSECONDS));
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.ListIterator;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestRingBuffer
+{
+	@Test
+	public void testOverwritesOldest()
+	{
+		RingBuffer<Integer> rb = new RingBuffer<Integer>(3);
+		for (int i = 0; i < 5; ++i)
+			rb.add(i);
+		
+		Assert.assertEquals(3, rb.size());
+		Assert.assertEquals(Arrays.asList(2, 3, 4), rb.asList());
+		Assert.assertEquals(Integer.valueOf(2), rb.peekFirst());
+		Assert.assertEquals(Integer.valueOf(4), rb.peekLast());
+		Assert.assertEquals(Integer.valueOf(3), rb.get(1));
+	}
+	
+	@Test
+	public void testPowerOfTwoCapacity()
+	{
+		RingBuffer<Integer> rb = new RingBuffer<Integer>(5, true);
+		Assert.assertEquals(8, rb.getCapacity());
+		
+		for (int i = 0; i < 20; ++i)
+			rb.add(i);
+		
+		Assert.assertEquals(Arrays.asList(12, 13, 14, 15, 16, 17, 18, 19), rb.asList());
+	}
+	
+	@Test
+	public void testRemoveFirstAndLast()
+	{
+		RingBuffer<Integer> rb = new RingBuffer<Integer>(4);
+		rb.addAll(Arrays.asList(1, 2, 3, 4, 5, 6));
+		
+		Assert.assertEquals(Integer.valueOf(3), rb.removeFirst());
+		Assert.assertEquals(Integer.valueOf(6), rb.removeLast());
+		Assert.assertEquals(Arrays.asList(4, 5), rb.asList());
+		
+		rb.clear();
+		Assert.assertTrue(rb.isEmpty());
+		Assert.assertNull(rb.peekFirst());
+	}
+	
+	@Test
+	public void testBulkOperationsAcrossWrap()
+	{
+		RingBuffer<Integer> rb = new RingBuffer<Integer>(5);
+		rb.addAll(Arrays.asList(1, 2, 3, 4));
+		rb.addAll(new Integer[] { 5, 6, 7 }, 0, 3);
+		
+		Assert.assertEquals(Arrays.asList(3, 4, 5, 6, 7), Arrays.asList(rb.toArray()));
+		Assert.assertEquals(
+				Arrays.asList(3, 4, 5, 6, 7),
+				Arrays.asList(rb.toArray(new Integer[0])));
+		
+		ArrayList<Integer> drained = new ArrayList<Integer>();
+		Assert.assertEquals(5, rb.drainTo(drained));
+		Assert.assertEquals(Arrays.asList(3, 4, 5, 6, 7), drained);
+		Assert.assertEquals(0, rb.size());
+	}
+	
+	@Test
+	public void testDequeView()
+	{
+		RingBuffer<Integer> rb = new RingBuffer<Integer>(3);
+		Deque<Integer> deque = rb.asDeque();
+		
+		deque.offerLast(2);
+		deque.offerFirst(1);
+		deque.addLast(3);
+		Assert.assertFalse(deque.offerFirst(0));
+		
+		Assert.assertEquals(Integer.valueOf(1), deque.peekFirst());
+		Assert.assertEquals(Integer.valueOf(3), deque.pollLast());
+		Assert.assertEquals(Integer.valueOf(2), deque.descendingIterator().next());
+	}
+	
+	@Test(expected = ConcurrentModificationException.class)
+	public void testIteratorIsFailFast()
+	{
+		RingBuffer<Integer> rb = new RingBuffer<Integer>(3);
+		rb.add(1);
+		rb.add(2);
+		
+		Iterator<Integer> i = rb.iterator();
+		i.next();
+		rb.add(3);
+		i.next();
+	}
+	
+	@Test
+	public void testDequeRemovesOccurrencesAcrossWrap()
+	{
+		RingBuffer<Integer> rb = new RingBuffer<Integer>(5);
+		rb.addAll(Arrays.asList(0, 0, 1, 2, 1, 3, 1));
+		Deque<Integer> deque = rb.asDeque();
+		
+		Assert.assertTrue(deque.removeLastOccurrence(1));
+		Assert.assertEquals(Arrays.asList(1, 2, 1, 3), rb.asList());
+		Assert.assertTrue(deque.removeFirstOccurrence(1));
+		Assert.assertEquals(Arrays.asList(2, 1, 3), rb.asList());
+		Assert.assertTrue(deque.remove(Integer.valueOf(3)));
+		Assert.assertFalse(deque.remove(Integer.valueOf(3)));
+		Assert.assertEquals(Arrays.asList(2, 1), rb.asList());
+		
+		rb.addAll(Arrays.asList(4, 5, 6, 7));
+		Assert.assertEquals(Arrays.asList(1, 4, 5, 6, 7), rb.asList());
+	}
+	
+	@Test(expected = ConcurrentModificationException.class)
+	public void testListViewIteratorsAreFailFast()
+	{
+		RingBuffer<Integer> rb = new RingBuffer<Integer>(3);
+		rb.add(1);
+		rb.add(2);
+		
+		ListIterator<Integer> i = rb.asList().listIterator();
+		i.next();
+		rb.add(3);
+		i.next();
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestSegmentedArrayStack
+{
+	@Test
+	public void testPushPopAcrossSegments()
+	{
+		SegmentedArrayStack<Integer> stack = new SegmentedArrayStack<Integer>(4);
+		for (int i = 0; i < 100; ++i)
+			stack.push(i);
+		
+		Assert.assertEquals(100, stack.size());
+		Assert.assertEquals(Integer.valueOf(99), stack.peek());
+		Assert.assertEquals(Integer.valueOf(94), stack.peek(5));
+		Assert.assertEquals(Integer.valueOf(42), stack.get(42));
+		
+		for (int i = 99; i >= 0; --i)
+			Assert.assertEquals(Integer.valueOf(i), stack.pop());
+		Assert.assertTrue(stack.isEmpty());
+	}
+	
+	@Test
+	public void testSegmentsAreReleased()
+	{
+		SegmentedArrayStack<Integer> stack = new SegmentedArrayStack<Integer>(3);
+		Assert.assertEquals(4, stack.getSegmentSize());
+		
+		for (int i = 0; i < 40; ++i)
+			stack.push(i);
+		Assert.assertEquals(40, stack.getCapacity());
+		
+		// One spare segment is kept
+		stack.popN(30);
+		Assert.assertEquals(16, stack.getCapacity());
+		
+		stack.trimToSize();
+		Assert.assertEquals(12, stack.getCapacity());
+		
+		stack.clear();
+		Assert.assertEquals(4, stack.getCapacity());
+	}
+	
+	@Test
+	public void testPushAllRewindAndIterator()
+	{
+		SegmentedArrayStack<String> stack = new SegmentedArrayStack<String>(2);
+		stack.push("a");
+		int mark = stack.mark();
+		stack.pushAll(Arrays.asList("b", "c", "d", "e"));
+		
+		ArrayList<String> items = new ArrayList<String>();
+		for (String s : stack)
+			items.add(s);
+		Assert.assertEquals(Arrays.asList("a", "b", "c", "d", "e"), items);
+		
+		stack.rewind(mark);
+		Assert.assertEquals(1, stack.size());
+		Assert.assertEquals("a", stack.peek());
+	}
+	
+	@Test(expected = ConcurrentModificationException.class)
+	public void testIteratorIsFailFast()
+	{
+		SegmentedArrayStack<Integer> stack = new SegmentedArrayStack<Integer>();
+		stack.push(1);
+		stack.push(2);
+		
+		Iterator<Integer> i = stack.iterator();
+		i.next();
+		stack.pop();
+		i.next();
+	}
+}
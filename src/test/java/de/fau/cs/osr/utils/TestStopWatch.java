@@ -0,0 +1,94 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestStopWatch
+{
+	@Test
+	public void testNeverStartedWatch()
+	{
+		StopWatch watch = new StopWatch(true);
+		Assert.assertEquals(0, watch.getElapsedTime());
+		Assert.assertEquals(0, watch.getElapsedTicks());
+		Assert.assertEquals(TimeUnit.NANOSECONDS, watch.getTickUnit());
+		Assert.assertEquals(TimeUnit.MILLISECONDS, new StopWatch().getTickUnit());
+	}
+	
+	@Test
+	public void testSuspendAndResumeAccumulate() throws Exception
+	{
+		long t0 = System.nanoTime();
+		StopWatch watch = new StopWatch(true).start();
+		Thread.sleep(5);
+		watch.suspend();
+		long first = watch.getElapsedTicks();
+		
+		Thread.sleep(20);
+		Assert.assertEquals(first, watch.getElapsedTicks());
+		
+		watch.resume();
+		Thread.sleep(5);
+		watch.stop();
+		long t1 = System.nanoTime();
+		
+		// The time the watch was suspended does not count
+		Assert.assertTrue(watch.getElapsedTime(TimeUnit.MICROSECONDS) >= 10000);
+		Assert.assertTrue(watch.getElapsedTicks() <= t1 - t0 - 20000000);
+		
+		// start() after stop() begins a new measurement
+		watch.start();
+		Assert.assertTrue(watch.getElapsedTicks() < first);
+	}
+	
+	@Test
+	public void testLapsAndSplits() throws Exception
+	{
+		StopWatch watch = new StopWatch(true, 3).start();
+		Thread.sleep(2);
+		long lap0 = watch.lap();
+		Thread.sleep(2);
+		long split1 = watch.split();
+		Thread.sleep(2);
+		long lap2 = watch.lap();
+		
+		Assert.assertEquals(3, watch.getSplitCount());
+		Assert.assertEquals(lap0, watch.getLap(0, TimeUnit.NANOSECONDS));
+		Assert.assertEquals(split1, watch.getSplit(1, TimeUnit.NANOSECONDS));
+		Assert.assertEquals(lap2, watch.getLap(2, TimeUnit.NANOSECONDS));
+		Assert.assertEquals(
+		        watch.getSplit(2, TimeUnit.NANOSECONDS),
+		        lap0 + watch.getLap(1, TimeUnit.NANOSECONDS) + lap2);
+		
+		watch.restart();
+		Assert.assertEquals(0, watch.getSplitCount());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testSplitArrayIsBounded()
+	{
+		StopWatch watch = new StopWatch(true, 1).start();
+		watch.split();
+		watch.split();
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestTickers
+{
+	@Test
+	public void testStopWatchWithManualTicker()
+	{
+		ManualTicker ticker = new ManualTicker(1000);
+		StopWatch watch = new StopWatch(ticker, 2).start();
+		
+		ticker.advance(3, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(3000000, watch.lap());
+		
+		watch.suspend();
+		ticker.advance(1, TimeUnit.SECONDS);
+		watch.resume();
+		
+		ticker.advance(2, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(2000000, watch.lap());
+		Assert.assertEquals(5, watch.getElapsedTime());
+		Assert.assertSame(ticker, watch.getTicker());
+	}
+	
+	@Test
+	public void testCoarseTickerIsRefreshed() throws Exception
+	{
+		CoarseTicker ticker = new CoarseTicker(1, TimeUnit.MILLISECONDS);
+		try
+		{
+			long first = ticker.read();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (ticker.read() == first && System.nanoTime() < deadline)
+				Thread.sleep(1);
+			
+			Assert.assertTrue(ticker.read() > first);
+			Assert.assertTrue(ticker.read() <= System.nanoTime());
+		}
+		finally
+		{
+			ticker.close();
+		}
+	}
+	
+	@Test
+	public void testStandardTickers()
+	{
+		Assert.assertEquals(TimeUnit.NANOSECONDS, Tickers.system().getUnit());
+		Assert.assertEquals(TimeUnit.MILLISECONDS, Tickers.wallClock().getUnit());
+		Assert.assertSame(CoarseTicker.getDefault(), Tickers.coarse());
+		Assert.assertEquals(TimeUnit.MILLISECONDS, new StopWatch().getTickUnit());
+	}
+}
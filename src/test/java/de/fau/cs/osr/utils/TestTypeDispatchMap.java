@@ -0,0 +1,89 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestTypeDispatchMap
+{
+	@Test
+	public void testTypeHierarchyOrder()
+	{
+		List<Class<?>> hierarchy = ReflectionUtils.getTypeHierarchy(ArrayList.class);
+		
+		Assert.assertEquals(ArrayList.class, hierarchy.get(0));
+		Assert.assertEquals(AbstractList.class, hierarchy.get(1));
+		Assert.assertEquals(Object.class, hierarchy.get(hierarchy.size() - 1));
+		
+		Assert.assertTrue(hierarchy.indexOf(List.class) < hierarchy.indexOf(Collection.class));
+		Assert.assertTrue(hierarchy.contains(RandomAccess.class));
+		Assert.assertTrue(hierarchy.contains(Serializable.class));
+		Assert.assertTrue(hierarchy.contains(Iterable.class));
+		
+		Assert.assertSame(hierarchy, ReflectionUtils.getTypeHierarchy(ArrayList.class));
+	}
+	
+	@Test
+	public void testPrimitiveTypeHierarchy()
+	{
+		Assert.assertEquals(
+				Arrays.<Class<?>> asList(int.class),
+				ReflectionUtils.getTypeHierarchy(int.class));
+	}
+	
+	@Test
+	public void testMostSpecificValueWins()
+	{
+		TypeDispatchMap<String> map = new TypeDispatchMap<String>();
+		map.put(Object.class, "object");
+		map.put(Collection.class, "collection");
+		map.put(AbstractList.class, "abstract-list");
+		
+		Assert.assertEquals("abstract-list", map.get(ArrayList.class));
+		Assert.assertEquals("collection", map.get(HashSet.class));
+		Assert.assertEquals("object", map.get(String.class));
+		Assert.assertNull(map.getExact(ArrayList.class));
+	}
+	
+	@Test
+	public void testRegistrationInvalidatesResolvedValues()
+	{
+		TypeDispatchMap<String> map = new TypeDispatchMap<String>();
+		Assert.assertNull(map.get(ArrayList.class));
+		
+		map.put(List.class, "list");
+		Assert.assertEquals("list", map.get(ArrayList.class));
+		
+		map.put(ArrayList.class, "array-list");
+		Assert.assertEquals("array-list", map.get(ArrayList.class));
+		
+		map.remove(ArrayList.class);
+		Assert.assertEquals("list", map.get(ArrayList.class));
+	}
+}
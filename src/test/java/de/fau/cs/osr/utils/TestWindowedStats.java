@@ -0,0 +1,128 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestWindowedStats
+{
+	@Test
+	public void testCountWindow()
+	{
+		WindowedStats stats = new WindowedStats(3);
+		stats.add(5);
+		stats.add(1);
+		stats.add(9);
+		stats.add(4);
+		
+		Assert.assertEquals(3, stats.size());
+		Assert.assertEquals(14, stats.getSum());
+		Assert.assertEquals(14 / 3., stats.getMean(), 1e-9);
+		Assert.assertEquals(1, stats.getMin());
+		Assert.assertEquals(9, stats.getMax());
+		
+		stats.add(2);
+		stats.add(3);
+		Assert.assertEquals(2, stats.getMin());
+		Assert.assertEquals(4, stats.getMax());
+	}
+	
+	@Test
+	public void testTimeWindow()
+	{
+		WindowedStats stats = new WindowedStats(100, 1, TimeUnit.HOURS);
+		
+		long now = System.nanoTime();
+		long twoHoursAgo = now - TimeUnit.HOURS.toNanos(2);
+		stats.add(1, twoHoursAgo);
+		stats.add(100, twoHoursAgo + 1);
+		stats.add(7, now);
+		stats.add(3, now);
+		
+		Assert.assertEquals(2, stats.size());
+		Assert.assertEquals(3, stats.getMin());
+		Assert.assertEquals(7, stats.getMax());
+		Assert.assertEquals(10, stats.getSum());
+	}
+	
+	@Test
+	public void testSamplesExpireWithTicker()
+	{
+		ManualTicker ticker = new ManualTicker();
+		WindowedStats stats = new WindowedStats(100, 10, TimeUnit.SECONDS, ticker);
+		
+		stats.add(5);
+		ticker.advance(6, TimeUnit.SECONDS);
+		stats.add(9);
+		Assert.assertEquals(2, stats.size());
+		
+		ticker.advance(6, TimeUnit.SECONDS);
+		Assert.assertEquals(1, stats.size());
+		Assert.assertEquals(9, stats.getMin());
+		
+		ticker.advance(1, TimeUnit.HOURS);
+		Assert.assertEquals(0, stats.size());
+	}
+	
+	@Test
+	public void testPercentilesAreApproximatelyExact()
+	{
+		int n = 10000;
+		long[] samples = new long[n];
+		Random random = new Random(42);
+		
+		WindowedStats stats = new WindowedStats(n);
+		for (int i = 0; i < 3 * n; ++i)
+		{
+			long value = (long) Math.abs(random.nextGaussian() * 1000000);
+			samples[i % n] = value;
+			stats.add(value);
+		}
+		
+		Arrays.sort(samples);
+		for (double p : new double[] { 1, 50, 90, 99, 99.9 })
+		{
+			long exact = samples[(int) Math.ceil(p / 100 * n) - 1];
+			long approx = stats.getPercentile(p);
+			Assert.assertEquals("p" + p, exact, approx, exact * 0.01);
+		}
+		
+		Assert.assertEquals(samples[0], stats.getPercentile(0));
+		Assert.assertEquals(samples[n - 1], stats.getPercentile(100));
+	}
+	
+	@Test
+	public void testStopWatchIsRecordedInNanoseconds()
+	{
+		ManualTicker ticker = new ManualTicker();
+		StopWatch watch = new StopWatch(ticker);
+		watch.start();
+		ticker.advance(250, TimeUnit.MICROSECONDS);
+		watch.stop();
+		
+		WindowedStats stats = new WindowedStats(4);
+		stats.add(watch);
+		Assert.assertEquals(250000, stats.getMax());
+	}
+}
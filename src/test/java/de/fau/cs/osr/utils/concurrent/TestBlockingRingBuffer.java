@@ -0,0 +1,149 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestBlockingRingBuffer
+{
+	@Test
+	public void testOfferFailsWhenFull() throws Exception
+	{
+		BlockingRingBuffer<Integer> rb = new BlockingRingBuffer<Integer>(2);
+		Assert.assertTrue(rb.offer(1));
+		Assert.assertTrue(rb.offer(2));
+		Assert.assertFalse(rb.offer(3));
+		Assert.assertFalse(rb.offer(3, 10, TimeUnit.MILLISECONDS));
+		Assert.assertEquals(0, rb.remainingCapacity());
+		
+		Assert.assertEquals(Integer.valueOf(1), rb.take());
+		Assert.assertTrue(rb.offer(3));
+		Assert.assertEquals(Arrays.asList(2, 3), new ArrayList<Integer>(rb));
+	}
+	
+	@Test
+	public void testPollTimesOutWhenEmpty() throws Exception
+	{
+		BlockingRingBuffer<Integer> rb = new BlockingRingBuffer<Integer>(2);
+		Assert.assertNull(rb.poll());
+		Assert.assertNull(rb.poll(10, TimeUnit.MILLISECONDS));
+		Assert.assertNull(rb.peek());
+	}
+	
+	@Test
+	public void testProducerIsThrottledByConsumer() throws Exception
+	{
+		final int n = 100000;
+		final BlockingRingBuffer<Integer> rb = new BlockingRingBuffer<Integer>(16);
+		
+		Thread producer = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					for (int i = 0; i < n; ++i)
+						rb.put(i);
+				}
+				catch (InterruptedException e)
+				{
+				}
+			}
+		};
+		producer.start();
+		
+		ArrayList<Integer> batch = new ArrayList<Integer>();
+		int expected = 0;
+		while (expected < n)
+		{
+			batch.clear();
+			batch.add(rb.take());
+			rb.drainTo(batch, 7);
+			for (Integer x : batch)
+				Assert.assertEquals(expected++, x.intValue());
+		}
+		
+		producer.join();
+		Assert.assertTrue(rb.isEmpty());
+	}
+	
+	@Test
+	public void testDrainToKeepsElementsOnFailure()
+	{
+		BlockingRingBuffer<Integer> rb = new BlockingRingBuffer<Integer>(4);
+		rb.addAll(Arrays.asList(1, 2, 3, 4));
+		
+		ArrayList<Integer> bounded = new ArrayList<Integer>()
+		{
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			public boolean add(Integer x)
+			{
+				if (size() == 2)
+					throw new IllegalStateException("Full");
+				return super.add(x);
+			}
+		};
+		
+		try
+		{
+			rb.drainTo(bounded);
+			Assert.fail();
+		}
+		catch (IllegalStateException e)
+		{
+		}
+		
+		Assert.assertEquals(Arrays.asList(1, 2), bounded);
+		Assert.assertEquals(Arrays.asList(3, 4), Arrays.asList(rb.toArray()));
+		Assert.assertEquals(2, rb.remainingCapacity());
+	}
+	
+	@Test
+	public void testRemoveAcrossWrap()
+	{
+		BlockingRingBuffer<Integer> rb = new BlockingRingBuffer<Integer>(4);
+		rb.addAll(Arrays.asList(0, 0, 1, 2));
+		rb.poll();
+		rb.poll();
+		rb.addAll(Arrays.asList(3, 4));
+		
+		Assert.assertTrue(rb.remove(Integer.valueOf(2)));
+		Assert.assertFalse(rb.remove(Integer.valueOf(2)));
+		Assert.assertEquals(Arrays.asList(1, 3, 4), Arrays.asList(rb.toArray()));
+		
+		Iterator<Integer> i = rb.iterator();
+		Assert.assertEquals(Integer.valueOf(1), i.next());
+		i.remove();
+		Assert.assertEquals(Arrays.asList(3, 4), Arrays.asList(rb.toArray()));
+		
+		Assert.assertTrue(rb.offer(5));
+		Assert.assertTrue(rb.offer(6));
+		Assert.assertFalse(rb.offer(7));
+		Assert.assertEquals(Arrays.asList(3, 4, 5, 6), Arrays.asList(rb.toArray()));
+	}
+}
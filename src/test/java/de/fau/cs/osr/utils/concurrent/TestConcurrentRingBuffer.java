@@ -0,0 +1,143 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestConcurrentRingBuffer
+{
+	private static final int N = 200000;
+	
+	@Test
+	public void testSpscOfferAndPoll()
+	{
+		SpscRingBuffer<Integer> rb = new SpscRingBuffer<Integer>(3);
+		Assert.assertEquals(4, rb.getCapacity());
+		
+		for (int i = 0; i < 4; ++i)
+			Assert.assertTrue(rb.offer(i));
+		Assert.assertFalse(rb.offer(4));
+		Assert.assertEquals(4, rb.size());
+		
+		Assert.assertEquals(Integer.valueOf(0), rb.poll());
+		Assert.assertTrue(rb.offer(4));
+		
+		final ArrayList<Integer> drained = new ArrayList<Integer>();
+		Assert.assertEquals(4, rb.drain(new Consumer<Integer>()
+		{
+			@Override
+			public void accept(Integer x)
+			{
+				drained.add(x);
+			}
+		}));
+		Assert.assertEquals(Arrays.asList(1, 2, 3, 4), drained);
+		Assert.assertNull(rb.poll());
+	}
+	
+	@Test
+	public void testSpscPreservesOrderAcrossThreads() throws Exception
+	{
+		final SpscRingBuffer<Integer> rb =
+				new SpscRingBuffer<Integer>(64, WaitStrategies.YIELD);
+		
+		Thread producer = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					for (int i = 0; i < N; ++i)
+						rb.put(i);
+				}
+				catch (InterruptedException e)
+				{
+				}
+			}
+		};
+		producer.start();
+		
+		for (int i = 0; i < N; ++i)
+			Assert.assertEquals(Integer.valueOf(i), rb.take());
+		
+		producer.join();
+		Assert.assertTrue(rb.isEmpty());
+	}
+	
+	@Test
+	public void testMpscDeliversEveryElement() throws Exception
+	{
+		final int producers = 4;
+		final MpscRingBuffer<Long> rb =
+				new MpscRingBuffer<Long>(128, WaitStrategies.park(1000));
+		
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; ++p)
+		{
+			threads[p] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						for (long i = 1; i <= N; ++i)
+							rb.put(i);
+					}
+					catch (InterruptedException e)
+					{
+					}
+				}
+			};
+			threads[p].start();
+		}
+		
+		final AtomicLong sum = new AtomicLong();
+		Consumer<Long> adder = new Consumer<Long>()
+		{
+			@Override
+			public void accept(Long x)
+			{
+				sum.addAndGet(x);
+			}
+		};
+		
+		int received = 0;
+		while (received < producers * N)
+		{
+			int n = rb.drain(adder, 32);
+			if (n == 0)
+				adder.accept(rb.take());
+			received += (n == 0) ? 1 : n;
+		}
+		
+		for (Thread t : threads)
+			t.join();
+		
+		Assert.assertEquals(producers * ((long) N * (N + 1) / 2), sum.get());
+		Assert.assertNull(rb.poll());
+	}
+}
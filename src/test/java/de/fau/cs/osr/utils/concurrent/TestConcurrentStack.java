@@ -0,0 +1,106 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.EmptyStackException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestConcurrentStack
+{
+	@Test
+	public void testLifoOrder()
+	{
+		ConcurrentStack<Integer> stack = new ConcurrentStack<Integer>();
+		Assert.assertTrue(stack.isEmpty());
+		Assert.assertNull(stack.poll());
+		
+		stack.push(1);
+		stack.push(2);
+		Assert.assertEquals(Integer.valueOf(2), stack.peek());
+		Assert.assertEquals(Integer.valueOf(2), stack.pop());
+		Assert.assertEquals(Integer.valueOf(1), stack.pop());
+		Assert.assertTrue(stack.isEmpty());
+	}
+	
+	@Test(expected = EmptyStackException.class)
+	public void testPopOnEmptyStack()
+	{
+		new ConcurrentStack<Object>().pop();
+	}
+	
+	@Test
+	public void testConcurrentPushPop() throws Exception
+	{
+		testConcurrentPushPop(new ConcurrentStack<Long>());
+		testConcurrentPushPop(new ConcurrentStack<Long>(4));
+	}
+	
+	private void testConcurrentPushPop(final ConcurrentStack<Long> stack) throws Exception
+	{
+		final int threads = 4;
+		final int perThread = 20000;
+		final AtomicLong popped = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; ++i)
+		{
+			final long base = (long) i * perThread;
+			workers[i] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+					}
+					catch (InterruptedException e)
+					{
+						return;
+					}
+					
+					for (int j = 1; j <= perThread; ++j)
+					{
+						stack.push(base + j);
+						Long item = stack.poll();
+						if (item != null)
+							popped.addAndGet(item);
+					}
+				}
+			};
+			workers[i].start();
+		}
+		
+		start.countDown();
+		for (Thread t : workers)
+			t.join();
+		
+		long rest = 0;
+		for (Long item; (item = stack.poll()) != null;)
+			rest += item;
+		
+		long n = (long) threads * perThread;
+		Assert.assertEquals(n * (n + 1) / 2, popped.get() + rest);
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.fau.cs.osr.utils.Deadline;
+import de.fau.cs.osr.utils.ManualTicker;
+
+public class TestHashedWheelTimer
+{
+	private static final Runnable NOP = new Runnable()
+	{
+		@Override
+		public void run()
+		{
+		}
+	};
+	
+	@Test
+	public void testTimeoutsFireWhenTickerAdvances() throws Exception
+	{
+		ManualTicker ticker = new ManualTicker();
+		HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 8, ticker);
+		try
+		{
+			final CountDownLatch latch = new CountDownLatch(3);
+			Runnable task = new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					latch.countDown();
+				}
+			};
+			
+			HashedWheelTimer.Timeout early = timer.newTimeout(task, 5, TimeUnit.MILLISECONDS);
+			// Further in the future than one turn of the wheel
+			HashedWheelTimer.Timeout late = timer.newTimeout(task, 20, TimeUnit.MILLISECONDS);
+			timer.newTimeout(task, Deadline.after(10, TimeUnit.MILLISECONDS, ticker));
+			
+			ticker.advance(7, TimeUnit.MILLISECONDS);
+			awaitExpired(early);
+			Assert.assertEquals(2, latch.getCount());
+			Assert.assertFalse(late.isExpired());
+			
+			ticker.advance(20, TimeUnit.MILLISECONDS);
+			Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+			Assert.assertTrue(late.isExpired());
+			Assert.assertFalse(late.cancel());
+		}
+		finally
+		{
+			timer.close();
+		}
+	}
+	
+	@Test
+	public void testCancelledTimeoutsDoNotFire() throws Exception
+	{
+		ManualTicker ticker = new ManualTicker();
+		HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 16, ticker);
+		try
+		{
+			final AtomicInteger fired = new AtomicInteger();
+			Runnable task = new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					fired.incrementAndGet();
+				}
+			};
+			
+			for (int i = 0; i < 100; ++i)
+			{
+				HashedWheelTimer.Timeout t = timer.newTimeout(task, 10 + i % 10, TimeUnit.MILLISECONDS);
+				if (i % 2 == 0)
+				{
+					Assert.assertTrue(t.cancel());
+					Assert.assertTrue(t.isCancelled());
+				}
+			}
+			
+			HashedWheelTimer.Timeout last = timer.newTimeout(NOP, 50, TimeUnit.MILLISECONDS);
+			ticker.advance(60, TimeUnit.MILLISECONDS);
+			awaitExpired(last);
+			Assert.assertEquals(50, fired.get());
+		}
+		finally
+		{
+			timer.close();
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDeadlineOnOtherTickerIsRejected()
+	{
+		HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 8, new ManualTicker());
+		try
+		{
+			timer.newTimeout(NOP, Deadline.after(1, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			timer.close();
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testClosedTimerRejectsTimeouts()
+	{
+		HashedWheelTimer timer = new HashedWheelTimer();
+		timer.close();
+		timer.newTimeout(NOP, 1, TimeUnit.SECONDS);
+	}
+	
+	// =========================================================================
+	
+	private static void awaitExpired(HashedWheelTimer.Timeout t) throws InterruptedException
+	{
+		long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!t.isExpired())
+		{
+			Assert.assertTrue(System.nanoTime() < giveUp);
+			Thread.sleep(1);
+		}
+	}
+}
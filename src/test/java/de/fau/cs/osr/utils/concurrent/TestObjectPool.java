@@ -0,0 +1,114 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestObjectPool
+{
+	private static ObjectPool<StringBuilder> newPool(
+	        final AtomicInteger created,
+	        int maxIdlePerThread,
+	        int maxSharedIdle)
+	{
+		return new ObjectPool<StringBuilder>(
+		        new Supplier<StringBuilder>()
+		        {
+			        @Override
+			        public StringBuilder get()
+			        {
+				        created.incrementAndGet();
+				        return new StringBuilder();
+			        }
+		        },
+		        new Consumer<StringBuilder>()
+		        {
+			        @Override
+			        public void accept(StringBuilder sb)
+			        {
+				        sb.setLength(0);
+			        }
+		        },
+		        maxIdlePerThread,
+		        maxSharedIdle);
+	}
+	
+	@Test
+	public void testObjectsAreReusedAndReset()
+	{
+		AtomicInteger created = new AtomicInteger();
+		ObjectPool<StringBuilder> pool = newPool(created, 2, 0);
+		
+		StringBuilder sb = pool.borrow();
+		sb.append("dirty");
+		pool.release(sb);
+		
+		Assert.assertSame(sb, pool.borrow());
+		Assert.assertEquals(0, sb.length());
+		Assert.assertEquals(1, created.get());
+	}
+	
+	@Test
+	public void testIdleObjectsAreCapped()
+	{
+		AtomicInteger created = new AtomicInteger();
+		ObjectPool<StringBuilder> pool = newPool(created, 2, 1);
+		
+		StringBuilder[] borrowed = new StringBuilder[5];
+		for (int i = 0; i < borrowed.length; ++i)
+			borrowed[i] = pool.borrow();
+		for (int i = 0; i < borrowed.length; ++i)
+			pool.release(borrowed[i]);
+		
+		Assert.assertEquals(2, pool.getThreadLocalIdleCount());
+		Assert.assertEquals(1, pool.getSharedIdleCount());
+		
+		pool.clearThreadLocal();
+		Assert.assertEquals(0, pool.getThreadLocalIdleCount());
+		Assert.assertSame(borrowed[2], pool.borrow());
+		Assert.assertEquals(0, pool.getSharedIdleCount());
+	}
+	
+	@Test
+	public void testCrossThreadReleaseGoesToSharedStack() throws Exception
+	{
+		AtomicInteger created = new AtomicInteger();
+		final ObjectPool<StringBuilder> pool = newPool(created, 0, 4);
+		final StringBuilder sb = pool.borrow();
+		
+		Thread t = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				pool.release(sb);
+			}
+		};
+		t.start();
+		t.join();
+		
+		Assert.assertSame(sb, pool.borrow());
+		Assert.assertEquals(1, created.get());
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.fau.cs.osr.utils.ManualTicker;
+
+public class TestRateLimiter
+{
+	@Test
+	public void testBurstAndRefill()
+	{
+		ManualTicker ticker = new ManualTicker();
+		RateLimiter limiter = new RateLimiter(10, 5, ticker);
+		
+		for (int i = 0; i < 5; ++i)
+			Assert.assertTrue(limiter.tryAcquire());
+		Assert.assertFalse(limiter.tryAcquire());
+		
+		ticker.advance(100, TimeUnit.MILLISECONDS);
+		Assert.assertTrue(limiter.tryAcquire());
+		Assert.assertFalse(limiter.tryAcquire());
+		
+		// Unused permits accumulate up to the burst size only
+		ticker.advance(10, TimeUnit.SECONDS);
+		Assert.assertTrue(limiter.tryAcquire(5));
+		Assert.assertFalse(limiter.tryAcquire());
+	}
+	
+	@Test
+	public void testTimeoutGivesUpEarly() throws Exception
+	{
+		ManualTicker ticker = new ManualTicker();
+		RateLimiter limiter = new RateLimiter(1, 1, ticker);
+		
+		Assert.assertTrue(limiter.tryAcquire());
+		Assert.assertFalse(limiter.tryAcquire(1, 500, TimeUnit.MILLISECONDS));
+		
+		ticker.advance(1, TimeUnit.SECONDS);
+		Assert.assertTrue(limiter.tryAcquire(1, 0, TimeUnit.MILLISECONDS));
+	}
+	
+	@Test
+	public void testAcquireBlocksAtRate() throws Exception
+	{
+		RateLimiter limiter = new RateLimiter(200, 1);
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < 20; ++i)
+			limiter.acquire();
+		long elapsed = System.nanoTime() - start;
+		
+		// 19 permits at 5 ms each after the first one
+		Assert.assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(90));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testTryAcquireMoreThanBurst()
+	{
+		new RateLimiter(10, 2).tryAcquire(3);
+	}
+	
+	@Test
+	public void testHighRatesAreAccurate()
+	{
+		ManualTicker ticker = new ManualTicker();
+		RateLimiter limiter = new RateLimiter(3e5, 1000, ticker);
+		
+		int acquired = 0;
+		for (int i = 0; i < 1000000; ++i)
+		{
+			ticker.advance(1, TimeUnit.MICROSECONDS);
+			while (limiter.tryAcquire())
+				++acquired;
+		}
+		
+		// The initial burst plus one second at 300000 permits per second
+		Assert.assertTrue(Math.abs(acquired - 1000 - 300000) <= 150);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testRatesAboveMaximumAreRejected()
+	{
+		new RateLimiter(RateLimiter.MAX_RATE * 1.01);
+	}
+	
+	@Test
+	public void testBurstOverflowIsRejected()
+	{
+		// One permit per 1e15 ns
+		long interval = 1000000000000000L;
+		int maxBurst = (int) ((Long.MAX_VALUE >> 2) / interval);
+		
+		RateLimiter limiter = new RateLimiter(1e-6, maxBurst, new ManualTicker());
+		Assert.assertTrue(limiter.tryAcquire(maxBurst));
+		Assert.assertFalse(limiter.tryAcquire());
+		
+		try
+		{
+			new RateLimiter(1e-6, maxBurst + 1, new ManualTicker());
+			Assert.fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+		
+		try
+		{
+			new RateLimiter(1e-6, 10000);
+			Assert.fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testAcquireOverflowIsRejected() throws Exception
+	{
+		new RateLimiter(1e-3, 1, new ManualTicker()).acquire(10000000);
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.jfr;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.fau.cs.osr.utils.Profiler;
+import de.fau.cs.osr.utils.ResourceMeter;
+
+public class TestJfrEvents
+{
+	@Test
+	public void testEventsAreRecorded() throws Exception
+	{
+		List<RecordedEvent> events;
+		
+		Recording recording = new Recording();
+		try
+		{
+			recording.enable(TimingEvent.NAME);
+			recording.enable(ScopeEvent.NAME);
+			recording.start();
+			
+			JfrStopWatch watch = new JfrStopWatch("parse").setContext("doc-42");
+			watch.start();
+			Thread.sleep(1);
+			watch.suspend();
+			watch.resume();
+			watch.stop();
+			
+			Profiler profiler = new Profiler(true);
+			try (Profiler.Scope outer = profiler.enter("document"))
+			{
+				try (Profiler.Scope inner = profiler.enter("render"))
+				{
+				}
+			}
+			
+			recording.stop();
+			
+			File file = File.createTempFile("test", ".jfr");
+			try
+			{
+				recording.dump(file.toPath());
+				events = RecordingFile.readAllEvents(file.toPath());
+			}
+			finally
+			{
+				file.delete();
+			}
+		}
+		finally
+		{
+			recording.close();
+		}
+		
+		List<String> timings = new ArrayList<String>();
+		List<String> scopes = new ArrayList<String>();
+		for (RecordedEvent e : events)
+		{
+			String type = e.getEventType().getName();
+			if (type.equals(TimingEvent.NAME))
+				timings.add(e.getString("name") + "@" + e.getString("context"));
+			else if (type.equals(ScopeEvent.NAME))
+				scopes.add(e.getString("path"));
+		}
+		
+		Assert.assertEquals(2, timings.size());
+		Assert.assertEquals("parse@doc-42", timings.get(0));
+		Assert.assertTrue(scopes.contains("document"));
+		Assert.assertTrue(scopes.contains("document/render"));
+	}
+	
+	@Test
+	public void testDisabledEventsDoNotAllocate()
+	{
+		if (!ResourceMeter.isAllocatedBytesSupported())
+			return;
+		
+		Profiler profiler = new Profiler(true);
+		JfrStopWatch watch = new JfrStopWatch("idle");
+		
+		// Warm up, the first scope and the first start allocate
+		enterAndStart(profiler, watch, 20000);
+		
+		ResourceMeter meter = new ResourceMeter().start();
+		enterAndStart(profiler, watch, 100000);
+		meter.stop();
+		
+		// Allocating an event per call would take several megabytes
+		Assert.assertTrue(meter.getAllocatedBytes() < 100000);
+	}
+	
+	private static void enterAndStart(Profiler profiler, JfrStopWatch watch, int n)
+	{
+		for (int i = 0; i < n; ++i)
+		{
+			try (Profiler.Scope s = profiler.enter("scope"))
+			{
+				watch.restart();
+				watch.stop();
+			}
+		}
+	}
+	
+	@Test
+	public void testNoEventWithoutRecording()
+	{
+		JfrStopWatch watch = new JfrStopWatch("idle");
+		watch.start();
+		watch.stop();
+		Assert.assertTrue(watch.getElapsedTicks() >= 0);
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.fau.cs.osr.utils.LatencyHistogram;
+
+public class TestMetricRegistry
+{
+	@Test
+	public void testSnapshot()
+	{
+		final AtomicInteger queueSize = new AtomicInteger(7);
+		try (MetricRegistry registry = new MetricRegistry())
+		{
+			registry.counter("documents").inc();
+			registry.counter("documents").inc(2);
+			registry.gauge("queue", new Supplier<Number>()
+			{
+				@Override
+				public Number get()
+				{
+					return queueSize.get();
+				}
+			});
+			
+			Timer timer = registry.timer("parse");
+			timer.update(5, TimeUnit.MILLISECONDS);
+			try (Timer.Context t = timer.time())
+			{
+			}
+			
+			SortedMap<String, Object> snapshot = registry.snapshot();
+			Assert.assertEquals(3L, snapshot.get("documents"));
+			Assert.assertEquals(7, snapshot.get("queue"));
+			
+			LatencyHistogram.Snapshot parse = (LatencyHistogram.Snapshot) snapshot.get("parse");
+			Assert.assertEquals(2, parse.getCount());
+			Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(5), parse.getMax(), 1e5);
+		}
+	}
+	
+	@Test
+	public void testJmxAttributesShareSnapshot()
+	{
+		Timer timer = new MetricRegistry().timer("parse");
+		timer.update(2, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(1, timer.getCount());
+		
+		// Attributes of one poll come from the same snapshot
+		timer.update(4, TimeUnit.MILLISECONDS);
+		Assert.assertEquals(1, timer.getCount());
+		Assert.assertEquals(2., timer.getMaxMillis(), .1);
+		Assert.assertEquals(2, timer.snapshot().getCount());
+		
+		timer.reset();
+		Assert.assertEquals(0, timer.getCount());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNamesAreUniqueAcrossTypes()
+	{
+		MetricRegistry registry = new MetricRegistry();
+		registry.counter("x");
+		registry.timer("x");
+	}
+	
+	@Test
+	public void testMetricsAreExposedOverJmx() throws Exception
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("de.fau.cs.osr.utils.test:type=Counter,name=\"pages\"");
+		
+		MetricRegistry registry = new MetricRegistry("de.fau.cs.osr.utils.test");
+		registry.counter("pages").inc(5);
+		Assert.assertEquals(5L, server.getAttribute(name, "Count"));
+		
+		registry.timer("render").update(1, TimeUnit.MILLISECONDS);
+		ObjectName timer = new ObjectName("de.fau.cs.osr.utils.test:type=Timer,name=\"render\"");
+		Assert.assertEquals(1L, server.getAttribute(timer, "Count"));
+		
+		registry.close();
+		Assert.assertFalse(server.isRegistered(name));
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.metrics;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.fau.cs.osr.utils.LatencyHistogram;
+
+public class TestSampledTimer
+{
+	@Test
+	public void testFixedIntervalScalesCounts()
+	{
+		MetricRegistry registry = new MetricRegistry();
+		SampledTimer timer = registry.sampledTimer("escape", 16);
+		
+		int sampled = 0;
+		for (int i = 0; i < 1600; ++i)
+		{
+			long start = timer.start();
+			if (start != -1)
+				++sampled;
+			timer.stop(start);
+		}
+		
+		Assert.assertEquals(100, sampled);
+		Assert.assertEquals(100, timer.getSampleCount());
+		
+		LatencyHistogram.Snapshot snapshot = timer.snapshot();
+		Assert.assertEquals(1600, snapshot.getCount());
+		Assert.assertSame(timer, registry.sampledTimer("escape", 1));
+	}
+	
+	@Test
+	public void testAdaptiveIntervalGrowsOnHotPath()
+	{
+		SampledTimer timer = new MetricRegistry().adaptiveSampledTimer("abbrev", 10);
+		Assert.assertEquals(1, timer.getSampleInterval());
+		
+		for (int i = 0; i < 1000000; ++i)
+			timer.stop(timer.start());
+		
+		Assert.assertTrue(timer.getSampleInterval() > 1);
+		Assert.assertTrue(timer.getSampleCount() < 1000000);
+		
+		// Every invocation is accounted for, up to the ones since the last
+		// sample
+		long count = timer.snapshot().getCount();
+		Assert.assertTrue(count <= 1000000);
+		Assert.assertTrue(count > 1000000 - 2 * timer.getSampleInterval());
+	}
+	
+	@Test
+	public void testAdaptiveIntervalShrinksWhenIdle() throws Exception
+	{
+		SampledTimer timer = new MetricRegistry().adaptiveSampledTimer("slow", 1000);
+		for (int i = 0; i < 1000; ++i)
+			timer.stop(timer.start());
+		int hot = timer.getSampleInterval();
+		Assert.assertTrue(hot > 1);
+		
+		for (int i = 0; i < 20 * hot && timer.getSampleInterval() >= hot; ++i)
+		{
+			Thread.sleep(0, 500000);
+			timer.stop(timer.start());
+		}
+		Assert.assertTrue(timer.getSampleInterval() < hot);
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestCharArrayStack
+{
+	@Test
+	public void testBracketMatching()
+	{
+		CharArrayStack stack = new CharArrayStack(1);
+		String input = "([{<>}])";
+		for (int i = 0; i < input.length() / 2; ++i)
+			stack.push(input.charAt(i));
+		
+		Assert.assertEquals(4, stack.size());
+		Assert.assertEquals('<', stack.peek());
+		Assert.assertEquals('(', stack.get(0));
+		
+		Assert.assertEquals('<', stack.pop());
+		Assert.assertEquals('{', stack.pop());
+		stack.popN(2);
+		Assert.assertTrue(stack.isEmpty());
+	}
+	
+	@Test
+	public void testPushAllAndRewind()
+	{
+		CharArrayStack stack = new CharArrayStack();
+		stack.push('a');
+		int mark = stack.mark();
+		stack.pushAll("xbcd".toCharArray(), 1, 3);
+		
+		Assert.assertTrue(Arrays.equals("abcd".toCharArray(), stack.toArray()));
+		
+		stack.rewind(mark);
+		Assert.assertTrue(Arrays.equals("a".toCharArray(), stack.toArray()));
+		
+		stack.trimToSize();
+		Assert.assertEquals(1, stack.getCapacity());
+	}
+	
+	@Test(expected = EmptyStackException.class)
+	public void testPopOnEmptyStack()
+	{
+		new CharArrayStack().pop();
+	}
+}
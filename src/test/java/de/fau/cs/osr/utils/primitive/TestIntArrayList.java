@@ -0,0 +1,74 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import java.util.ConcurrentModificationException;
+import java.util.PrimitiveIterator;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestIntArrayList
+{
+	@Test
+	public void testAddRemoveInsert()
+	{
+		IntArrayList list = new IntArrayList(2);
+		for (int i = 0; i < 10; ++i)
+			list.add(i * 10);
+		
+		list.add(0, -10);
+		Assert.assertEquals(11, list.size());
+		Assert.assertEquals(-10, list.get(0));
+		Assert.assertEquals(50, list.removeAt(6));
+		Assert.assertEquals(90, list.removeLast());
+		Assert.assertEquals(4, list.indexOf(30));
+		Assert.assertFalse(list.contains(50));
+		
+		list.truncate(3);
+		Assert.assertEquals("[-10, 0, 10]", list.toString());
+	}
+	
+	@Test
+	public void testSortAndEquals()
+	{
+		IntArrayList a = new IntArrayList();
+		a.addAll(new int[] { 3, 1, 2 }, 0, 3);
+		a.sort();
+		
+		IntArrayList b = new IntArrayList();
+		b.addAll(new int[] { 1, 2, 3 }, 0, 3);
+		
+		Assert.assertEquals(b, a);
+		Assert.assertEquals(b.hashCode(), a.hashCode());
+	}
+	
+	@Test(expected = ConcurrentModificationException.class)
+	public void testIteratorIsFailFast()
+	{
+		IntArrayList list = new IntArrayList();
+		list.add(1);
+		list.add(2);
+		
+		PrimitiveIterator.OfInt i = list.iterator();
+		Assert.assertEquals(1, i.nextInt());
+		list.add(3);
+		i.nextInt();
+	}
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import java.util.EmptyStackException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestIntArrayStack
+{
+	@Test
+	public void testPushPopPeek()
+	{
+		IntArrayStack stack = new IntArrayStack(0);
+		for (int i = 0; i < 100; ++i)
+			stack.push(i);
+		
+		Assert.assertEquals(100, stack.size());
+		Assert.assertEquals(99, stack.peek());
+		Assert.assertEquals(97, stack.peek(2));
+		Assert.assertEquals(3, stack.get(3));
+		Assert.assertEquals(99, stack.pop());
+		
+		stack.popN(49);
+		Assert.assertEquals(50, stack.size());
+		Assert.assertEquals(49, stack.peek());
+	}
+	
+	@Test
+	public void testPushAllAndToArray()
+	{
+		LongArrayStack stack = new LongArrayStack(1);
+		stack.push(1);
+		stack.pushAll(new long[] { 0, 2, 3, 4 }, 1, 3);
+		
+		Assert.assertEquals(4L, stack.peek());
+		Assert.assertEquals("[1, 2, 3, 4]", stack.toString());
+		Assert.assertEquals(4, stack.toArray().length);
+		
+		stack.trimToSize();
+		Assert.assertEquals(4, stack.getCapacity());
+	}
+	
+	@Test
+	public void testCharStack()
+	{
+		CharArrayStack stack = new CharArrayStack();
+		stack.push('(');
+		stack.push('[');
+		
+		Assert.assertEquals('[', stack.pop());
+		Assert.assertEquals('(', stack.pop());
+		Assert.assertTrue(stack.isEmpty());
+	}
+	
+	@Test(expected = EmptyStackException.class)
+	public void testPopOnEmptyStack()
+	{
+		new IntArrayStack().pop();
+	}
+}
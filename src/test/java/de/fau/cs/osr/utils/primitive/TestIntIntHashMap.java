@@ -0,0 +1,106 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestIntIntHashMap
+{
+	@Test
+	public void testPutGetRemove()
+	{
+		IntIntHashMap map = new IntIntHashMap(4, .5f, -1);
+		Assert.assertEquals(-1, map.put(0, 10));
+		Assert.assertEquals(-1, map.put(7, 70));
+		Assert.assertEquals(70, map.put(7, 71));
+		
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals(10, map.get(0));
+		Assert.assertEquals(71, map.get(7));
+		Assert.assertEquals(-1, map.get(8));
+		Assert.assertEquals(5, map.getOrDefault(8, 5));
+		
+		Assert.assertEquals(10, map.remove(0));
+		Assert.assertFalse(map.containsKey(0));
+		Assert.assertEquals(1, map.size());
+	}
+	
+	@Test
+	public void testAddTo()
+	{
+		IntIntHashMap map = new IntIntHashMap();
+		for (int i = 0; i < 100; ++i)
+			map.addTo(i % 7, 1);
+		
+		Assert.assertEquals(7, map.size());
+		Assert.assertEquals(15, map.get(0));
+		Assert.assertEquals(14, map.get(6));
+	}
+	
+	@Test
+	public void testAgainstHashMap()
+	{
+		Random rnd = new Random(42);
+		IntIntHashMap map = new IntIntHashMap(1);
+		Map<Integer, Integer> reference = new HashMap<Integer, Integer>();
+		
+		for (int i = 0; i < 100000; ++i)
+		{
+			int key = rnd.nextInt(2000) - 1000;
+			if (rnd.nextInt(3) == 0)
+			{
+				Integer expected = reference.remove(key);
+				Assert.assertEquals(expected == null ? 0 : expected, map.remove(key));
+			}
+			else
+			{
+				Integer expected = reference.put(key, i);
+				Assert.assertEquals(expected == null ? 0 : expected, map.put(key, i));
+			}
+		}
+		
+		Assert.assertEquals(reference.size(), map.size());
+		Assert.assertEquals(reference.size(), map.keys().length);
+		for (Map.Entry<Integer, Integer> e : reference.entrySet())
+			Assert.assertEquals((int) e.getValue(), map.get(e.getKey()));
+	}
+	
+	@Test
+	public void testIntObjectHashMap()
+	{
+		IntObjectHashMap<String> map = new IntObjectHashMap<String>(2);
+		for (int i = 0; i < 100; ++i)
+			map.put(i, "v" + i);
+		
+		Assert.assertEquals(100, map.size());
+		Assert.assertEquals("v0", map.get(0));
+		Assert.assertEquals("v42", map.remove(42));
+		Assert.assertNull(map.get(42));
+		
+		for (int i = 0; i < 100; i += 2)
+			map.remove(i);
+		Assert.assertEquals(50, map.size());
+		Assert.assertEquals("v99", map.get(99));
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestIntObjectHashMap
+{
+	@Test
+	public void testPutGetRemove()
+	{
+		IntObjectHashMap<String> map = new IntObjectHashMap<String>(4, .5f);
+		Assert.assertNull(map.put(0, "zero"));
+		Assert.assertNull(map.put(7, "seven"));
+		Assert.assertEquals("seven", map.put(7, "SEVEN"));
+		Assert.assertNull(map.put(-3, "minus three"));
+		
+		Assert.assertEquals(3, map.size());
+		Assert.assertEquals("zero", map.get(0));
+		Assert.assertEquals("SEVEN", map.get(7));
+		Assert.assertNull(map.get(8));
+		
+		Assert.assertEquals("zero", map.remove(0));
+		Assert.assertFalse(map.containsKey(0));
+		Assert.assertNull(map.remove(0));
+		Assert.assertEquals("minus three", map.remove(-3));
+		Assert.assertNull(map.remove(-3));
+		Assert.assertEquals(1, map.size());
+	}
+	
+	@Test
+	public void testRemoveKeepsCollidingKeysReachable()
+	{
+		// Many keys in a small table form long probe sequences, removing
+		// from the middle must shift the following keys back
+		IntObjectHashMap<Integer> map = new IntObjectHashMap<Integer>(64);
+		for (int i = 1; i <= 40; ++i)
+			map.put(i * 64, i);
+		
+		for (int i = 1; i <= 40; i += 3)
+			Assert.assertEquals(Integer.valueOf(i), map.remove(i * 64));
+		
+		for (int i = 1; i <= 40; ++i)
+		{
+			if ((i - 1) % 3 == 0)
+				Assert.assertFalse(map.containsKey(i * 64));
+			else
+				Assert.assertEquals(Integer.valueOf(i), map.get(i * 64));
+		}
+	}
+	
+	@Test
+	public void testRemovedValuesAreNotVisited()
+	{
+		IntObjectHashMap<String> map = new IntObjectHashMap<String>(2);
+		for (int i = 0; i < 100; ++i)
+			map.put(i, "v" + i);
+		for (int i = 0; i < 100; i += 2)
+			map.remove(i);
+		
+		final int[] visited = new int[1];
+		map.forEach(new IntObjectHashMap.EntryVisitor<String>()
+		{
+			@Override
+			public void visit(int key, String value)
+			{
+				Assert.assertEquals(1, key % 2);
+				Assert.assertEquals("v" + key, value);
+				++visited[0];
+			}
+		});
+		
+		Assert.assertEquals(50, visited[0]);
+		Assert.assertEquals(50, map.keys().length);
+		
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(1));
+	}
+	
+	@Test
+	public void testAgainstHashMap()
+	{
+		Random rnd = new Random(42);
+		IntObjectHashMap<Integer> map = new IntObjectHashMap<Integer>(1);
+		Map<Integer, Integer> reference = new HashMap<Integer, Integer>();
+		
+		for (int i = 0; i < 100000; ++i)
+		{
+			int key = rnd.nextInt(2000) - 1000;
+			if (rnd.nextInt(3) == 0)
+				Assert.assertEquals(reference.remove(key), map.remove(key));
+			else
+				Assert.assertEquals(reference.put(key, i), map.put(key, i));
+		}
+		
+		Assert.assertEquals(reference.size(), map.size());
+		Assert.assertEquals(reference.size(), map.keys().length);
+		for (Map.Entry<Integer, Integer> e : reference.entrySet())
+			Assert.assertEquals(e.getValue(), map.get(e.getKey()));
+	}
+	
+	@Test(expected = NullPointerException.class)
+	public void testNullValuesAreRejected()
+	{
+		new IntObjectHashMap<String>().put(1, null);
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2011 The Open Source Research Group,
+ *                University of Erlangen-Nürnberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.fau.cs.osr.utils.primitive;
+
+import java.util.EmptyStackException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestLongArrayStack
+{
+	@Test
+	public void testPushPopAndGrow()
+	{
+		LongArrayStack stack = new LongArrayStack(0);
+		for (long i = 0; i < 100; ++i)
+			stack.push(i << 33);
+		
+		Assert.assertEquals(100, stack.size());
+		Assert.assertTrue(stack.getCapacity() >= 100);
+		Assert.assertEquals(99L << 33, stack.peek());
+		Assert.assertEquals(97L << 33, stack.peek(2));
+		Assert.assertEquals(3L << 33, stack.get(3));
+		Assert.assertEquals(99L << 33, stack.pop());
+		
+		stack.popN(49);
+		Assert.assertEquals(50, stack.size());
+		Assert.assertEquals(49L << 33, stack.peek());
+	}
+	
+	@Test
+	public void testMarkAndRewind()
+	{
+		LongArrayStack stack = new LongArrayStack();
+		stack.push(1);
+		int mark = stack.mark();
+		stack.push(2);
+		stack.push(3);
+		
+		stack.rewind(mark);
+		Assert.assertEquals(1, stack.size());
+		Assert.assertEquals(1L, stack.peek());
+		
+		stack.clear();
+		Assert.assertTrue(stack.isEmpty());
+	}
+	
+	@Test(expected = EmptyStackException.class)
+	public void testPeekBelowBottom()
+	{
+		LongArrayStack stack = new LongArrayStack();
+		stack.push(1);
+		stack.peek(1);
+	}
+}